@@ -0,0 +1,89 @@
+package rw.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rw.battle.Battle;
+import rw.shell.Menu;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Advancing a battle one tick, and rendering it
+ * Every iteration starts from a new battle (robots are too healthy to die while benchmarked), the cost of rendering a
+ * tick is battleStringAfterTick less advanceSimulation.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BattleBenchmark {
+
+    /**
+     * The rows and columns of the battle
+     */
+    @Param({"64", "256", "1024"})
+    public int size;
+    /**
+     * The fraction of cells holding a robot
+     */
+    @Param({"0.01", "0.1"})
+    public double density;
+    /**
+     * The battle
+     */
+    private Battle battle;
+
+    /**
+     * Make a new battle (nothing is printed or logged)
+     */
+    @Setup(Level.Iteration)
+    public void setUp() {
+        Menu.setupQuiet();
+        battle = Worlds.create(size, density, 1);
+        battle.battleString();
+    }
+
+    /**
+     * Advance the battle one tick
+     */
+    @Benchmark
+    public void advanceSimulation() {
+        battle.advanceSimulation();
+    }
+
+    /**
+     * Advance the battle one tick and render it
+     *
+     * @return The battle rendered
+     */
+    @Benchmark
+    public String battleStringAfterTick() {
+        battle.advanceSimulation();
+        return battle.battleString();
+    }
+
+    /**
+     * Render the battle when nothing changed since it was last rendered
+     *
+     * @return The battle rendered
+     */
+    @Benchmark
+    public String battleStringUnchanged() {
+        return battle.battleString();
+    }
+}
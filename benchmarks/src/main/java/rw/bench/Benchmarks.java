@@ -0,0 +1,43 @@
+package rw.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+
+/**
+ * Runs the benchmarks with the usual JMH command line options, always with the gc profiler
+ * so every result is reported as ops/s along with its allocation rate (gc.alloc.rate and gc.alloc.rate.norm)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class Benchmarks {
+
+    /**
+     * Not made, only main
+     */
+    private Benchmarks() {
+    }
+
+    /**
+     * Run the benchmarks
+     *
+     * @param args JMH options, such as a regular expression of the benchmarks to run or -p size=256
+     * @throws RunnerException            If the benchmarks fail
+     * @throws CommandLineOptionException If an option is not valid
+     * @throws IOException                If JMH cannot list what was asked for
+     */
+    public static void main(String[] args) throws RunnerException, CommandLineOptionException, IOException {
+        CommandLineOptions options = new CommandLineOptions(args);
+        if (options.shouldHelp() || options.shouldList() || options.shouldListProfilers() || options.shouldListResultFormats()) {
+            org.openjdk.jmh.Main.main(args);
+            return;
+        }
+        new Runner(new OptionsBuilder().parent(options).addProfiler(GCProfiler.class).build()).run();
+    }
+}
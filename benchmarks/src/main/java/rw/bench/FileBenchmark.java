@@ -0,0 +1,105 @@
+package rw.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import rw.battle.Battle;
+import rw.util.Reader;
+import rw.util.Writer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Loading and saving battle files, in the dense (a line per cell) or SPARSE text format
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FileBenchmark {
+
+    /**
+     * The rows and columns of the battle
+     */
+    @Param({"64", "256", "1024"})
+    public int size;
+    /**
+     * The fraction of cells holding a robot
+     */
+    @Param({"0.01", "0.1"})
+    public double density;
+    /**
+     * The format of the file
+     */
+    @Param({"dense", "sparse"})
+    public String format;
+    /**
+     * The battle saved
+     */
+    private Battle battle;
+    /**
+     * The battle file loaded
+     */
+    private File input;
+    /**
+     * The file saved to
+     */
+    private File output;
+
+    /**
+     * Make the battle and save it to be loaded
+     *
+     * @throws IOException If the files cannot be made
+     */
+    @Setup
+    public void setUp() throws IOException {
+        battle = Worlds.create(size, density, 1);
+        input = Files.createTempFile("battle", ".txt").toFile();
+        output = Files.createTempFile("battle", ".txt").toFile();
+        Writer.writeBattleToFile(battle, input.getPath(), format.equals("sparse"));
+    }
+
+    /**
+     * Delete the files
+     */
+    @TearDown
+    public void tearDown() {
+        input.delete();
+        output.delete();
+    }
+
+    /**
+     * Load the battle file
+     *
+     * @return The battle loaded
+     */
+    @Benchmark
+    public Battle loadBattle() {
+        return Reader.loadBattle(input);
+    }
+
+    /**
+     * Save the battle
+     */
+    @Benchmark
+    public void writeBattleToFile() {
+        Writer.writeBattleToFile(battle, output.getPath(), format.equals("sparse"));
+    }
+}
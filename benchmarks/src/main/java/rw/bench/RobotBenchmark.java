@@ -0,0 +1,187 @@
+package rw.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import rw.battle.Battle;
+import rw.battle.Entity;
+import rw.battle.LocalView;
+import rw.battle.Maximal;
+import rw.battle.PredaCon;
+import rw.battle.Robot;
+import rw.enums.Direction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Looking around a robot, and the decisions of Maximals and PredaCons (each call is for the next robot in turn)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RobotBenchmark {
+
+    /**
+     * The size of the local view a robot chooses its move in
+     */
+    private static final int MOVE_SIZE = 5;
+    /**
+     * The size of the local view a robot chooses its attack in
+     */
+    private static final int ATTACK_SIZE = 3;
+
+    /**
+     * The rows and columns of the battle
+     */
+    @Param({"64", "256", "1024"})
+    public int size;
+    /**
+     * The fraction of cells holding a robot
+     */
+    @Param({"0.01", "0.1"})
+    public double density;
+    /**
+     * The battle
+     */
+    private Battle battle;
+    /**
+     * Row and column of every robot
+     */
+    private int[][] locations;
+    /**
+     * Every Maximal
+     */
+    private Maximal[] maximals;
+    /**
+     * Move and attack views centred on every Maximal
+     */
+    private LocalView[][] maximalViews;
+    /**
+     * Every PredaCon
+     */
+    private PredaCon[] predaCons;
+    /**
+     * Move and attack views centred on every PredaCon
+     */
+    private LocalView[][] predaConViews;
+    /**
+     * The robot to use next
+     */
+    private int next;
+
+    /**
+     * Make the battle and find its robots
+     */
+    @Setup
+    public void setUp() {
+        battle = Worlds.create(size, density, 1);
+        List<int[]> found = new ArrayList<>();
+        List<Maximal> maximalList = new ArrayList<>();
+        List<LocalView[]> maximalViewList = new ArrayList<>();
+        List<PredaCon> predaConList = new ArrayList<>();
+        List<LocalView[]> predaConViewList = new ArrayList<>();
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                Entity entity = battle.getEntity(row, column);
+                if (entity instanceof Robot) {
+                    found.add(new int[]{row, column});
+                    LocalView[] views = {battle.getLocal(MOVE_SIZE, row, column), battle.getLocal(ATTACK_SIZE, row, column)};
+                    if (entity instanceof Maximal) {
+                        maximalList.add((Maximal) entity);
+                        maximalViewList.add(views);
+                    } else {
+                        predaConList.add((PredaCon) entity);
+                        predaConViewList.add(views);
+                    }
+                }
+            }
+        }
+        locations = found.toArray(new int[0][]);
+        maximals = maximalList.toArray(new Maximal[0]);
+        maximalViews = maximalViewList.toArray(new LocalView[0][]);
+        predaCons = predaConList.toArray(new PredaCon[0]);
+        predaConViews = predaConViewList.toArray(new LocalView[0][]);
+    }
+
+    /**
+     * The next index into robots of the given number
+     *
+     * @param count The number of robots
+     * @return The index
+     */
+    private int next(int count) {
+        next = next + 1 < count ? next + 1 : 0;
+        return next;
+    }
+
+    /**
+     * Make the move view around a robot
+     *
+     * @return The view
+     */
+    @Benchmark
+    public LocalView getLocal() {
+        int[] location = locations[next(locations.length)];
+        return battle.getLocal(MOVE_SIZE, location[0], location[1]);
+    }
+
+    /**
+     * A Maximal chooses its move
+     *
+     * @return The move
+     */
+    @Benchmark
+    public Direction maximalChooseMove() {
+        int i = next(maximals.length);
+        return maximals[i].chooseMove(maximalViews[i][0]);
+    }
+
+    /**
+     * A Maximal chooses where to attack
+     *
+     * @return The attack, null if none
+     */
+    @Benchmark
+    public Direction maximalAttackWhere() {
+        int i = next(maximals.length);
+        return maximals[i].attackWhere(maximalViews[i][1]);
+    }
+
+    /**
+     * A PredaCon chooses its move
+     *
+     * @return The move
+     */
+    @Benchmark
+    public Direction predaConChooseMove() {
+        int i = next(predaCons.length);
+        return predaCons[i].chooseMove(predaConViews[i][0]);
+    }
+
+    /**
+     * A PredaCon chooses where to attack
+     *
+     * @return The attack, null if none
+     */
+    @Benchmark
+    public Direction predaConAttackWhere() {
+        int i = next(predaCons.length);
+        return predaCons[i].attackWhere(predaConViews[i][1]);
+    }
+}
@@ -0,0 +1,74 @@
+package rw.bench;
+
+import rw.battle.Battle;
+import rw.battle.Maximal;
+import rw.battle.PredaCon;
+import rw.battle.Robot;
+import rw.battle.Wall;
+import rw.enums.WeaponType;
+
+import java.util.Random;
+
+/**
+ * Makes the battles the benchmarks run on, the same battle for the same size, density and seed
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+final class Worlds {
+
+    /**
+     * Fraction of cells that are walls
+     */
+    private static final double WALL_DENSITY = 0.05;
+    /**
+     * Health of every robot, high enough that few die while a battle is benchmarked
+     */
+    private static final int HEALTH = 1_000_000;
+
+    /**
+     * Not made, only static methods
+     */
+    private Worlds() {
+    }
+
+    /**
+     * A square battle with walls and robots at random (Maximals and PredaCons alternate, in row order)
+     *
+     * @param size    The rows and columns of the battle
+     * @param density The fraction of cells holding a robot
+     * @param seed    The seed of the layout
+     * @return The battle
+     */
+    static Battle create(int size, double density, long seed) {
+        Random random = new Random(seed);
+        Battle battle = new Battle(size, size);
+        int robots = 0;
+        for (int row = 0; row < size; row++) {
+            for (int column = 0; column < size; column++) {
+                double roll = random.nextDouble();
+                if (roll < density) {
+                    battle.addEntity(row, column, robot(robots++, random));
+                } else if (roll < density + WALL_DENSITY) {
+                    battle.addEntity(row, column, Wall.getWall());
+                }
+            }
+        }
+        return battle;
+    }
+
+    /**
+     * A robot
+     *
+     * @param number The number of robots made before it
+     * @param random Chooses its strengths
+     * @return A Maximal for even numbers, a PredaCon for odd numbers
+     */
+    private static Robot robot(int number, Random random) {
+        if (number % 2 == 0) {
+            return new Maximal('M', "Maximal" + number, HEALTH, 1 + random.nextInt(5), random.nextInt(3));
+        }
+        WeaponType[] weapons = WeaponType.values();
+        return new PredaCon('P', "PredaCon" + number, HEALTH, weapons[random.nextInt(weapons.length)]);
+    }
+}
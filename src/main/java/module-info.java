@@ -1,7 +1,11 @@
 module mvh.app {
-    requires javafx.graphics;
+    requires transitive javafx.graphics;
     requires javafx.controls;
     requires javafx.fxml;
+    requires java.management;
+    requires jdk.httpserver;
+    requires jdk.jfr;
     opens rw.app to javafx.fxml;
     exports rw.app;
-}
\ No newline at end of file
+    exports rw.metrics to java.management;
+}
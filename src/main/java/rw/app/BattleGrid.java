@@ -0,0 +1,376 @@
+package rw.app;
+
+import javafx.geometry.BoundingBox;
+import javafx.geometry.Bounds;
+import javafx.geometry.VPos;
+import javafx.scene.Parent;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.control.ScrollPane;
+import javafx.scene.input.ContextMenuEvent;
+import javafx.scene.input.MouseEvent;
+import javafx.scene.layout.Pane;
+import javafx.scene.layout.Region;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.Paint;
+import javafx.scene.text.Font;
+import javafx.scene.text.TextAlignment;
+import rw.battle.Battle;
+import rw.battle.Entity;
+import rw.battle.Maximal;
+import rw.battle.Wall;
+import rw.enums.Colors;
+import rw.enums.Symbol;
+
+/**
+ * Draws a battle (with its perimeter of walls) as a grid of cells on one Canvas, for the world editor
+ * The grid takes the full size of the battle, but the canvas only covers the part of it that can be seen (inside the
+ * ScrollPane around it, or the window), and only the cells under it are drawn, so drawing costs the same for any size of
+ * battle. Mouse positions are turned into cells: handlers are told when the mouse enters a cell, leaves the cells, or
+ * right clicks a cell.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class BattleGrid extends Pane {
+
+    /**
+     * Width and height of a cell in pixels
+     */
+    public static final double CELL_SIZE = 50;
+    /**
+     * Font of the symbols in the cells
+     */
+    private static final Font FONT = new Font("Candara", 12);
+    /**
+     * Symbols as strings, made once for every ASCII character
+     */
+    private static final String[] GLYPHS = new String[128];
+
+    static {
+        for (char c = 0; c < GLYPHS.length; c++) {
+            GLYPHS[c] = String.valueOf(c);
+        }
+    }
+
+    /**
+     * The canvas, covering the visible part of the grid
+     */
+    private final Canvas canvas = new Canvas();
+    /**
+     * The battle drawn, null for none
+     */
+    private Battle battle;
+    /**
+     * The ScrollPane this grid is in (found once the grid is in a scene), null for none
+     */
+    private ScrollPane scrollPane;
+    /**
+     * The cell the mouse is over (row and column of the grid, the perimeter is row and column 0), -1 if none
+     */
+    private int mouseRow = -1, mouseColumn = -1;
+    /**
+     * Told the cell the mouse entered
+     */
+    private CellHandler onCellEntered = (row, column) -> {
+    };
+    /**
+     * Told when the mouse leaves the cells
+     */
+    private Runnable onCellsExited = () -> {
+    };
+    /**
+     * Told the cell right clicked
+     */
+    private CellHandler onCellMenu = (row, column) -> {
+    };
+
+    /**
+     * Told about a cell of the grid
+     */
+    @FunctionalInterface
+    public interface CellHandler {
+
+        /**
+         * Handle a cell
+         *
+         * @param row    The row of the cell in the grid (the perimeter is row 0)
+         * @param column The column of the cell in the grid (the perimeter is column 0)
+         */
+        void handle(int row, int column);
+    }
+
+    /**
+     * An empty grid, sized to its battle once given one
+     */
+    public BattleGrid() {
+        getChildren().add(canvas);
+        setMinSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        setMaxSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE);
+        // Move the canvas along whenever the visible part of the grid changes
+        localToSceneTransformProperty().addListener((observable, before, after) -> draw());
+        sceneProperty().addListener((observable, before, after) -> findScrollPane());
+        addEventHandler(MouseEvent.MOUSE_MOVED, this::mouseMoved);
+        addEventHandler(MouseEvent.MOUSE_EXITED, event -> mouseExited());
+        addEventHandler(ContextMenuEvent.CONTEXT_MENU_REQUESTED, this::menuRequested);
+    }
+
+    /**
+     * Draw a battle, the grid is sized to it
+     *
+     * @param battle The battle to draw
+     */
+    void setBattle(Battle battle) {
+        this.battle = battle;
+        setPrefSize((battle.getColumns() + 2) * CELL_SIZE, (battle.getRows() + 2) * CELL_SIZE);
+        mouseRow = -1;
+        mouseColumn = -1;
+        draw();
+    }
+
+    /**
+     * Draw the battle again (after entities were added or removed)
+     */
+    public void refresh() {
+        draw();
+    }
+
+    /**
+     * Set what is told about the mouse entering a cell
+     *
+     * @param handler Given the cell
+     */
+    public void setOnCellEntered(CellHandler handler) {
+        this.onCellEntered = handler;
+    }
+
+    /**
+     * Set what is told about the mouse leaving the cells
+     *
+     * @param handler Run when the mouse leaves
+     */
+    public void setOnCellsExited(Runnable handler) {
+        this.onCellsExited = handler;
+    }
+
+    /**
+     * Set what is told about a cell being right clicked
+     *
+     * @param handler Given the cell
+     */
+    public void setOnCellMenu(CellHandler handler) {
+        this.onCellMenu = handler;
+    }
+
+    /**
+     * The number of rows of the grid (the battle and its perimeter)
+     *
+     * @return The rows
+     */
+    public int getGridRows() {
+        return battle == null ? 0 : battle.getRows() + 2;
+    }
+
+    /**
+     * The number of columns of the grid (the battle and its perimeter)
+     *
+     * @return The columns
+     */
+    public int getGridColumns() {
+        return battle == null ? 0 : battle.getColumns() + 2;
+    }
+
+    @Override
+    protected void layoutChildren() {
+        // The canvas is placed by draw(), not by the pane
+        draw();
+    }
+
+    /**
+     * Remember the ScrollPane around the grid (if any), and draw again when it is resized
+     */
+    private void findScrollPane() {
+        Parent parent = getParent();
+        while (parent != null && !(parent instanceof ScrollPane)) {
+            parent = parent.getParent();
+        }
+        if (parent != null && parent != scrollPane) {
+            scrollPane = (ScrollPane) parent;
+            scrollPane.layoutBoundsProperty().addListener((observable, before, after) -> draw());
+        }
+        draw();
+    }
+
+    /**
+     * Size the canvas to the visible part of the grid and draw the cells under it
+     */
+    private void draw() {
+        Bounds visible = visibleBounds();
+        if (battle == null || visible == null) {
+            canvas.setWidth(0);
+            canvas.setHeight(0);
+            return;
+        }
+        int firstColumn = (int) Math.floor(visible.getMinX() / CELL_SIZE);
+        int firstRow = (int) Math.floor(visible.getMinY() / CELL_SIZE);
+        int lastColumn = Math.min(getGridColumns(), (int) Math.ceil(visible.getMaxX() / CELL_SIZE)) - 1;
+        int lastRow = Math.min(getGridRows(), (int) Math.ceil(visible.getMaxY() / CELL_SIZE)) - 1;
+        // The canvas covers whole cells, so the cells can be drawn at whole pixels
+        double x = firstColumn * CELL_SIZE;
+        double y = firstRow * CELL_SIZE;
+        canvas.relocate(x, y);
+        canvas.setWidth((lastColumn - firstColumn + 1) * CELL_SIZE);
+        canvas.setHeight((lastRow - firstRow + 1) * CELL_SIZE);
+
+        GraphicsContext gc = canvas.getGraphicsContext2D();
+        // Clearing the whole canvas drops the commands of earlier draws that were not shown yet
+        gc.clearRect(0, 0, canvas.getWidth(), canvas.getHeight());
+        gc.setFont(FONT);
+        gc.setTextAlign(TextAlignment.CENTER);
+        gc.setTextBaseline(VPos.CENTER);
+        gc.setStroke(Color.BLACK);
+        gc.setLineWidth(1);
+        for (int row = firstRow; row <= lastRow; row++) {
+            for (int column = firstColumn; column <= lastColumn; column++) {
+                drawCell(gc, row, column, column * CELL_SIZE - x, row * CELL_SIZE - y);
+            }
+        }
+    }
+
+    /**
+     * Draw one cell: its color, a black outline and its symbol
+     *
+     * @param gc     The graphics of the canvas
+     * @param row    The row of the cell in the grid
+     * @param column The column of the cell in the grid
+     * @param x      The left of the cell on the canvas
+     * @param y      The top of the cell on the canvas
+     */
+    private void drawCell(GraphicsContext gc, int row, int column, double x, double y) {
+        Paint fill;
+        char symbol;
+        // Pad the perimeter with walls
+        if (row == 0 || row == getGridRows() - 1 || column == 0 || column == getGridColumns() - 1) {
+            fill = Colors.WALL.getColor();
+            symbol = Symbol.WALL.getSymbol();
+        } else {
+            // Indices in the grid are increased by one due to padding of columns and rows.
+            Entity entity = battle.getEntity(row - 1, column - 1);
+            switch (entity) {
+                case null -> {
+                    fill = Colors.EMPTY.getColor();
+                    symbol = ' ';
+                }
+                case Wall wall -> {
+                    fill = Colors.WALL.getColor();
+                    symbol = entity.getSymbol();
+                }
+                case Maximal maximal -> {
+                    fill = Colors.MAXIMAL.getColor();
+                    symbol = entity.getSymbol();
+                }
+                default -> {
+                    fill = Colors.PREDACON.getColor();
+                    symbol = entity.getSymbol();
+                }
+            }
+        }
+        gc.setFill(fill);
+        gc.fillRect(x, y, CELL_SIZE, CELL_SIZE);
+        // Half pixel in, so the one pixel outline is sharp
+        gc.strokeRect(x + 0.5, y + 0.5, CELL_SIZE - 1, CELL_SIZE - 1);
+        if (symbol != ' ') {
+            gc.setFill(Color.BLACK);
+            gc.fillText(symbol < GLYPHS.length ? GLYPHS[symbol] : String.valueOf(symbol), x + CELL_SIZE / 2, y + CELL_SIZE / 2);
+        }
+    }
+
+    /**
+     * The part of the grid that can be seen, inside the ScrollPane around it (or the window if there is none)
+     *
+     * @return The bounds in the grid's coordinates, null if none of it can be seen
+     */
+    private Bounds visibleBounds() {
+        if (getScene() == null) {
+            return null;
+        }
+        Bounds view;
+        if (scrollPane != null) {
+            view = sceneToLocal(scrollPane.localToScene(scrollPane.getLayoutBounds()));
+        } else {
+            view = sceneToLocal(new BoundingBox(0, 0, getScene().getWidth(), getScene().getHeight()));
+        }
+        double minX = Math.max(0, view.getMinX());
+        double minY = Math.max(0, view.getMinY());
+        double maxX = Math.min(getWidth(), view.getMaxX());
+        double maxY = Math.min(getHeight(), view.getMaxY());
+        if (minX >= maxX || minY >= maxY) {
+            return null;
+        }
+        return new BoundingBox(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    /**
+     * Tell the handler when the mouse moves into another cell
+     *
+     * @param event The mouse moving over the grid
+     */
+    private void mouseMoved(MouseEvent event) {
+        int row = rowAt(event.getY());
+        int column = columnAt(event.getX());
+        if (row < 0 || column < 0) {
+            mouseExited();
+        } else if (row != mouseRow || column != mouseColumn) {
+            mouseRow = row;
+            mouseColumn = column;
+            onCellEntered.handle(row, column);
+        }
+    }
+
+    /**
+     * Tell the handler the mouse left the cells
+     */
+    private void mouseExited() {
+        if (mouseRow != -1) {
+            mouseRow = -1;
+            mouseColumn = -1;
+            onCellsExited.run();
+        }
+    }
+
+    /**
+     * Tell the handler which cell was right clicked
+     *
+     * @param event The right click on the grid
+     */
+    private void menuRequested(ContextMenuEvent event) {
+        int row = rowAt(event.getY());
+        int column = columnAt(event.getX());
+        if (row >= 0 && column >= 0) {
+            onCellMenu.handle(row, column);
+            event.consume();
+        }
+    }
+
+    /**
+     * The row of the cells under a point of the grid
+     *
+     * @param y The y in the grid's coordinates
+     * @return The row in the grid, -1 if the point is not on a row
+     */
+    private int rowAt(double y) {
+        int row = (int) Math.floor(y / CELL_SIZE);
+        return row >= 0 && row < getGridRows() ? row : -1;
+    }
+
+    /**
+     * The column of the cells under a point of the grid
+     *
+     * @param x The x in the grid's coordinates
+     * @return The column in the grid, -1 if the point is not on a column
+     */
+    private int columnAt(double x) {
+        int column = (int) Math.floor(x / CELL_SIZE);
+        return column >= 0 && column < getGridColumns() ? column : -1;
+    }
+}
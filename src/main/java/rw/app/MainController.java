@@ -1,22 +1,14 @@
 package rw.app;
 
 import javafx.application.Platform;
-import javafx.geometry.Pos;
-import javafx.scene.Node;
 import javafx.scene.control.*;
-import javafx.scene.input.ContextMenuEvent;
-import javafx.scene.input.MouseEvent;
-import javafx.scene.shape.Rectangle;
-import javafx.scene.text.TextAlignment;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import rw.battle.*;
 import javafx.fxml.FXML;
 import javafx.event.ActionEvent;
-import javafx.scene.layout.GridPane;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
-import rw.enums.Colors;
 import rw.enums.Symbol;
 import rw.enums.WeaponType;
 import rw.util.Reader;
@@ -44,7 +36,7 @@ public class MainController {
     private TextArea detailsOutput;
 
     @FXML
-    private GridPane gridPane;
+    private BattleGrid battleGrid;
 
     @FXML
     private MenuItem loadButton;
@@ -133,9 +125,13 @@ public class MainController {
         for (WeaponType weapon: WeaponType.values()){
             predaconWeaponTypeInput.getItems().add(weapon.name());
         }
+        // Attach handlers to the grid (they are given the cell under the mouse)
+        battleGrid.setOnCellEntered(this::gridMouseEnterHandler);
+        battleGrid.setOnCellsExited(this::gridMouseExitHandler);
+        battleGrid.setOnCellMenu(this::gridClickHandler);
         // Load with an empty 3 x 3 battle
         this.battle = new Battle(3, 3);
-        populateGridPane();
+        battleGrid.setBattle(this.battle);
     }
 
     /**
@@ -165,12 +161,14 @@ public class MainController {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Open File");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary Maps", "*.rwm"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Compressed Text Files", "*.gz", "*.deflate"));
         Stage stage = (Stage) loadButton.getParentPopup().getOwnerWindow();
         File sourceFile = fileChooser.showOpenDialog(stage);
         // Read in source file
         try{
             this.battle = Reader.loadBattle(sourceFile);
-            populateGridPane();
+            battleGrid.setBattle(this.battle);
         } catch (RuntimeException e){
             statusLabel.setText(e.getMessage());
         }
@@ -201,11 +199,17 @@ public class MainController {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Save As...");
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Text Files", "*.txt"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Binary Maps", "*.rwm"));
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Compressed Text Files", "*.gz", "*.deflate"));
         Stage stage = (Stage) loadButton.getParentPopup().getOwnerWindow();
         File destinationFile = fileChooser.showSaveDialog(stage);
         try {
-            // Write battle attribute to specified file
-            Writer.writeBattleToFile(this.battle, destinationFile.getPath());
+            // Write battle attribute to specified file (binary map if chosen by extension)
+            if (destinationFile.getName().endsWith(".rwm")) {
+                Writer.writeBinaryBattleToFile(this.battle, destinationFile.getPath());
+            } else {
+                Writer.writeBattleToFile(this.battle, destinationFile.getPath());
+            }
         } catch (RuntimeException e){
             statusLabel.setText(e.getMessage());
         }
@@ -216,14 +220,14 @@ public class MainController {
 
     /**
      * Handles click event in the Save menu option.  Saves the Battle information displayed in the GUI as
-     * a world.txt file by default.
+     * a world.txt file by default, in the SPARSE format so only occupied cells are written.
      * @param event Click event in the Save menu option.
      */
     @FXML
     void saveHandler(ActionEvent event) {
         try {
             // Write battle attribute to default world.txt file
-            Writer.writeBattleToFile(this.battle, "world.txt");
+            Writer.writeBattleToFile(this.battle, "world.txt", true);
         } catch (RuntimeException e){
             statusLabel.setText(e.getMessage());
         }
@@ -233,20 +237,17 @@ public class MainController {
     }
 
     /**
-     * Displays Node details in details TextArea when mouse enters the node.
-     * @param event Mouse entering the node.
+     * Displays cell details in details TextArea when mouse enters the cell.
+     * @param row Row of the cell in the grid (row 0 is the perimeter).
+     * @param column Column of the cell in the grid (column 0 is the perimeter).
      */
-    @FXML
-    void gridMouseEnterHandler(MouseEvent event){
-        // Get GridPane row and column index of the clicked node
-        Node source = (Node) event.getSource();
-        int row = GridPane.getRowIndex(source);
-        int column = GridPane.getColumnIndex(source);
-
-        // If node is not a perimeter node and not null, then we proceed to display information about the entity
+    void gridMouseEnterHandler(int row, int column){
+        // If cell is not a perimeter cell and not null, then we proceed to display information about the entity
         int rows = this.battle.getRows() + 2;
         int columns = this.battle.getColumns() + 2;
-        if(!(row == 0 || row == rows - 1 || column == 0 || column == columns - 1)){
+        if(row == 0 || row == rows - 1 || column == 0 || column == columns - 1){
+            detailsOutput.clear();
+        } else {
             Entity entity = battle.getEntity(row - 1, column - 1);
             StringBuilder sb = new StringBuilder();
             // Display information according to entity type
@@ -286,34 +287,27 @@ public class MainController {
     }
 
     /**
-     * Clear information displayed in details TextArea when mouse exits a GridPane node.
-     * @param event Mouse leaving the GridPane node.
+     * Clear information displayed in details TextArea when mouse exits the grid.
      */
-    @FXML
-    void gridMouseExitHandler(MouseEvent event){
+    void gridMouseExitHandler(){
         detailsOutput.clear();
     }
 
     /**
-     * Right click event handler for a GridPane node.  If the node is not a perimeter wall, then it clears
-     * the node both in the GUI and battle attribute.  Finally, populate GridPane again with all changes.
-     * @param event Right click event on GridPane node.
+     * Right click event handler for a grid cell.  If the cell is not a perimeter wall, then it clears
+     * the cell both in the GUI and battle attribute.  Finally, draw the grid again with all changes.
+     * @param row Row of the right clicked cell in the grid (row 0 is the perimeter).
+     * @param column Column of the right clicked cell in the grid (column 0 is the perimeter).
      */
-    @FXML
-    void gridClickHandler(ContextMenuEvent event){
-        // Get GridPane row and column index of the clicked node
-        Node source = (Node) event.getSource();
-        int row = GridPane.getRowIndex(source);
-        int column = GridPane.getColumnIndex(source);
-
-        // If node is not a perimeter wall, then we proceed to remove it
+    void gridClickHandler(int row, int column){
+        // If cell is not a perimeter wall, then we proceed to remove it
         int rows = this.battle.getRows() + 2;
         int columns = this.battle.getColumns() + 2;
         if(!(row == 0 || row == rows - 1 || column == 0 || column == columns - 1)){
             // Remove entity from battle attribute
             this.battle.addEntity(row - 1, column - 1, null);
-            // Repopulate grid
-            populateGridPane();
+            // Draw grid again
+            battleGrid.refresh();
             // Update status
             statusLabel.setText("Removed entity at row " + (row - 1) + ", column " + (column -1));
         }
@@ -361,8 +355,8 @@ public class MainController {
             Maximal maximal = new Maximal(symbol.charAt(0), name, health, weaponStrength, armourStrength);
             this.battle.addEntity(y, x, maximal);
 
-            // Populate grid
-            populateGridPane();
+            // Draw grid again
+            battleGrid.refresh();
 
             // Update status
             statusLabel.setText("Added Maximal " + name + " in row " + y + ", column " + x + ".");
@@ -418,8 +412,8 @@ public class MainController {
             PredaCon predaCon = new PredaCon(symbol.charAt(0), name, health, weapon);
             this.battle.addEntity(y, x, predaCon);
 
-            // Populate grid
-            populateGridPane();
+            // Draw grid again
+            battleGrid.refresh();
 
             // Update status
             statusLabel.setText("Added Predacon " + name + " in row " + y + ", column " + x + ".");
@@ -451,8 +445,8 @@ public class MainController {
             // Create new battle object of corresponding size
             this.battle = new Battle(rows, columns);
 
-            // Populate grid
-            populateGridPane();
+            // Show new grid
+            battleGrid.setBattle(this.battle);
 
             // Reset input fields
             resetWorldInputFields();
@@ -464,77 +458,6 @@ public class MainController {
     }
 
     //////////////////////////////////////////// HELPER METHODS ////////////////////////////////////////////
-    /**
-     * Populates GridPane according to the information in battle attribute.
-     */
-    private void populateGridPane(){
-        // Clear previous content of grid pane
-        gridPane.getChildren().clear();
-
-        // Get gridpane dimensions
-        int rows = this.battle.getRows() + 2;
-        int columns = this.battle.getColumns() + 2;
-
-        for (int row = 0; row < rows; row++) {
-            for (int column = 0; column < columns; column++) {
-                Rectangle rectangle;
-                Label label = new Label();
-                label.setFont(new Font("Candara", 12));
-                label.setTextAlignment(TextAlignment.CENTER);
-                // Pad the perimeter with walls
-                if (row == 0 || row == rows - 1 || column == 0 || column == columns - 1) {
-                    rectangle = new Rectangle(50, 50, Colors.WALL.getColor());
-                    label.setText("#");
-                } else {
-                    // Indices in grid pane are increased by one due to padding of columns and rows.
-                    Entity entity = this.battle.getEntity(row - 1, column - 1);
-                    rectangle = new Rectangle(50,50);
-                    switch (entity) {
-                        case null -> rectangle.setFill(Colors.EMPTY.getColor());
-                        case Wall wall -> {
-                            rectangle.setFill(Colors.WALL.getColor());
-                            label.setText(String.valueOf(entity.getSymbol()));
-                        }
-                        case Maximal maximal -> {
-                            rectangle.setFill(Colors.MAXIMAL.getColor());
-                            label.setText(String.valueOf(entity.getSymbol()));
-                        }
-                        default -> {
-                            rectangle.setFill(Colors.PREDACON.getColor());
-                            label.setText(String.valueOf(entity.getSymbol()));
-                        }
-                    }
-                }
-                // Set black outline for rectangles and add handler
-                rectangle.setStroke(Color.BLACK);
-
-                // Add rectangle and label to pane
-                gridPane.add(rectangle, column, row);
-                gridPane.add(label, column, row);
-
-                // Center label in grid
-                GridPane.setHalignment(label, Pos.CENTER.getHpos());
-                GridPane.setValignment(label, Pos.CENTER.getVpos());
-            }
-        }
-
-        // Attach handlers to new grid
-        attachGridPaneHandlers();
-    }
-
-    /**
-     * Attaches handlers to every GridPane node.
-     */
-    private void attachGridPaneHandlers(){
-        for (Node node: gridPane.getChildren()){
-            // Add mouse handlers
-            node.setOnMouseEntered(this::gridMouseEnterHandler);
-            node.setOnMouseExited(this::gridMouseExitHandler);
-            // Add right-click handler
-            node.setOnContextMenuRequested(this::gridClickHandler);
-        }
-    }
-
     /**
      * Resets all input fields related to world size.
      */
@@ -1,15 +1,18 @@
 package rw.battle;
 
-import rw.shell.Main;
 import rw.shell.Menu;
 import rw.enums.Direction;
-import rw.enums.Symbol;
+import rw.jfr.AttackEvent;
+import rw.jfr.DecisionEvent;
+import rw.jfr.TickEvent;
+import rw.util.LogLevel;
+import rw.util.RandomSource;
 
-import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 
 /**
  * A Battle is a 2D grid of entities, null Spots are floor spots
+ * Stored as primitive arrays: a cell kind per cell, a robot index per robot cell, and a RobotRegistry of robot columns
  *
  * @author Jonathan Hudson
  * @version 1.0
@@ -19,25 +22,83 @@ public class Battle {
     /**
      * The local view of battle for attacking will be 3x3 grid
      */
-    private static final int ATTACK_BATTLE_SIZE = 3;
+    static final int ATTACK_BATTLE_SIZE = 3;
     /**
      * The local view of battle for moving will be 5x5 grid
      */
-    private static final int MOVE_BATTLE_SIZE = 5;
+    static final int MOVE_BATTLE_SIZE = 5;
     /**
-     * The storage of entities in Battle, floor is null, Dead robots can be moved on top of (deleting them from the map)
+     * Cell kind of a floor spot
      */
-    private final Entity[][] battle;
+    static final byte EMPTY = 0;
+    /**
+     * Cell kind of a wall
+     */
+    static final byte WALL = 1;
+    /**
+     * Cell kind of a robot (alive or dead), the robot itself is found through cellRobots
+     */
+    static final byte ROBOT = 2;
+    /**
+     * The rows of the battle
+     */
+    private final int rows;
+    /**
+     * The columns of the battle
+     */
+    private final int columns;
+    /**
+     * The storage of entities in Battle as one byte per cell (row major), floor is EMPTY,
+     * Dead robots can be moved on top of (deleting them from the map)
+     */
+    private final byte[] cells;
+    /**
+     * The index (into robots) of the robot in each ROBOT cell (row major), unused for other cells
+     */
+    private final int[] cellRobots;
+    /**
+     * The rows of the map changed since the battle was last rendered (by moves and additions, see BattleRenderer)
+     */
+    private final boolean[] changedRows;
+    /**
+     * Renders battleString() and gameString(), drawing again only what changed
+     */
+    private final BattleRenderer renderer;
     /**
      * We track the order that robots were added (this is used to determine order of actions each turn)
-     * Robots remain in this list (Even if DEAD) ,unlike the battle Robot[][] where they can be moved on top of causing deletion.
+     * Robots remain in this registry (Even if DEAD) ,unlike the cells where they can be moved on top of causing deletion.
+     * The registry also links the robots still ALIVE in turn order, so each turn only visits the living.
+     * The registry also tracks robot location in battle {row, column}, updated every time a Robot is shifted in the cells
+     */
+    private final RobotRegistry robots;
+    /**
+     * Re-usable local view for attacking (re-centred on each robot rather than made new each turn)
+     */
+    private final LocalView attackView;
+    /**
+     * Re-usable local view for moving (re-centred on each robot rather than made new each turn)
+     */
+    private final LocalView moveView;
+    /**
+     * The seed battles use until given their own random number generator (the seed the program used to default to)
+     */
+    private static final long DEFAULT_SEED = 12345;
+    /**
+     * The random number generator for damage rolls and random robot moves (owned by this battle alone)
      */
-    private final ArrayList<Robot> robots;
+    private RandomSource random;
     /**
-     * We use a HashMap to track robot location in battle {row, column}
-     * We will update this every time a Robot is shifted in the battle Robot[][]
+     * The number of times the simulation has been advanced
      */
-    private final HashMap<Entity, Integer[]> locations;
+    private int tick;
+    /**
+     * The parallel engine that advances this battle, null to advance one robot at a time
+     */
+    private TiledEngine engine;
+    /**
+     * Everything told about what happens in this battle
+     */
+    private BattleObserver[] observers = new BattleObserver[0];
     /**
      * The Battle starts ACTIVE
      */
@@ -50,9 +111,16 @@ public class Battle {
      * @param columns The 2D of the 2D battle (columns)
      */
     public Battle(int rows, int columns) {
-        this.battle = new Entity[rows][columns];
-        this.robots = new ArrayList<>();
-        this.locations = new HashMap<>();
+        this.rows = rows;
+        this.columns = columns;
+        this.cells = new byte[rows * columns];
+        this.cellRobots = new int[rows * columns];
+        this.changedRows = new boolean[rows];
+        this.robots = new RobotRegistry();
+        this.renderer = new BattleRenderer(this);
+        this.attackView = new LocalView(this, ATTACK_BATTLE_SIZE);
+        this.moveView = new LocalView(this, MOVE_BATTLE_SIZE);
+        this.random = RandomSource.lcg(DEFAULT_SEED);
         //Starts active
         this.state = State.ACTIVE;
     }
@@ -74,39 +142,81 @@ public class Battle {
     }
 
     /**
-     * Return a sub-battle Entity[][] grid focused around given row,col of odd grid size 3,5,7,9...
+     * The random number generator used by this battle
+     *
+     * @return The random number generator of this battle
+     */
+    public RandomSource getRandom() {
+        return random;
+    }
+
+    /**
+     * Give this battle a different random number generator
+     * Battles never share a generator, so battles can be simulated on different threads independently of each other
+     *
+     * @param random The random number generator to use for damage rolls and random robot moves
+     */
+    public void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * Advance this battle with a parallel engine instead of one robot at a time
+     * (results depend on the engine, see TiledEngine, but never on the number of threads)
+     *
+     * @param engine The engine to use, null to go back to advancing one robot at a time
+     */
+    public void setEngine(TiledEngine engine) {
+        this.engine = engine;
+    }
+
+    /**
+     * Tell an observer about everything that happens in this battle from now on
+     *
+     * @param observer The observer to add
+     */
+    public void addObserver(BattleObserver observer) {
+        observers = Arrays.copyOf(observers, observers.length + 1);
+        observers[observers.length - 1] = observer;
+    }
+
+    /**
+     * Stop telling an observer about what happens in this battle
+     *
+     * @param observer The observer to remove
+     */
+    public void removeObserver(BattleObserver observer) {
+        for (int i = 0; i < observers.length; i++) {
+            if (observers[i] == observer) {
+                BattleObserver[] remaining = new BattleObserver[observers.length - 1];
+                System.arraycopy(observers, 0, remaining, 0, i);
+                System.arraycopy(observers, i + 1, remaining, i, remaining.length - i);
+                observers = remaining;
+                return;
+            }
+        }
+    }
+
+    /**
+     * The number of times the simulation has been advanced
+     *
+     * @return The number of completed simulation steps
+     */
+    public int getTick() {
+        return tick;
+    }
+
+    /**
+     * Return a read-only local view focused around given row,col of odd grid size 3,5,7,9...
+     * The view reads through to this battle, so it always reflects the current state of the battle
      *
      * @param size         The size of grid
      * @param centreRow    The row to generate grid around
      * @param centreColumn The column to generate grid around
-     * @return Battle of given size centred around given location
-     */
-    public Battle getLocal(int size, int centreRow, int centreColumn) {
-        final int ADJ = (size - 1) / 2;
-        //Check that size is large enough, and is an odd number
-        if (size < 3 || size % 2 != 1) {
-            throw new IllegalArgumentException("Local size must be 3,5,7,...!");
-        }
-        //Make the empty battle
-        Battle local = new Battle(size, size);
-        //Now loop through indices in create local view of battle
-        for (int localRow = 0; localRow < size; localRow++) {
-            for (int localColumn = 0; localColumn < size; localColumn++) {
-                //Get the index in the greater battle that matches
-                int battleRow = centreRow + localRow - (ADJ);
-                int battleColumn = centreColumn + localColumn - (ADJ);
-                //
-                //If the lookup is validly in the Battle we get that robot (be it null or not and store it)
-                if (battleRow >= 0 && battleRow < battle.length && battleColumn >= 0 && battleColumn < battle[0].length) {
-                    local.addEntity(localRow, localColumn, battle[battleRow][battleColumn]);
-                }
-                //If the lookup is for something outside battle, then we fill with a Wall
-                else {
-                    local.addEntity(localRow, localColumn, Wall.getWall());
-                }
-            }
-        }
-        return local;
+     * @return LocalView of given size centred around given location
+     */
+    public LocalView getLocal(int size, int centreRow, int centreColumn) {
+        return new LocalView(this, size).centre(centreRow, centreColumn);
     }
 
     /**
@@ -117,80 +227,260 @@ public class Battle {
         if (state == State.INACTIVE) {
             return;
         }
-        //If not done go through all robots (this will be in order read and added from file)
-        for (Robot robot : robots) {
-            //If robot is something that is ALIVE, we want to give it a turn to ATTACK or MOVE
-            if (robot.isAlive()) {
-                //Get location of robot (only the battle knows this, the robot does not itself)
-                Integer[] location = locations.get(robot);
-                //Pull out row,column
-                int row = location[0];
-                int column = location[1];
-                //Determine if/where a robot wants to attack
-                Battle attackBattle3X3 = getLocal(ATTACK_BATTLE_SIZE, row, column);
-                Direction attackWhere = robot.attackWhere(attackBattle3X3);
-                //If I don't attack, then I must be moving
-                if (attackWhere == null) {
-                    //Figure out where robot wants to move
-                    Battle moveBattle5x5 = getLocal(MOVE_BATTLE_SIZE, row, column);
-                    Direction moveWhere = robot.chooseMove(moveBattle5x5);
-                    //Log moving
-                    Menu.println(String.format("%s moving %s", robot.shortString(), moveWhere));
-                    //If this move is valid, then move it
-                    if (canMoveOnTopOf(row, column, moveWhere)) {
-                        moveEntity(row, column, moveWhere);
-                    } else {
-                        //Otherwise, indicate an invalid attempt to move
-                        Menu.println(String.format("%s  tried to move somewhere it could not!", robot.shortString()));
-                    }
-                } else {
-                    //If we are here our earlier attack question was not null, and we are attacking a nearby robot
-                    //Get the robot we are attacking
-                    Entity entity = getEntity(row, column, attackWhere);
-                    Menu.println(String.format("%s attacking %s in direction %s", robot.shortString(), entity.getClass(), attackWhere));
-                    //Can we attack this entity
-                    if (canBeAttacked(row, column, attackWhere)) {
-                        if (entity instanceof Robot) {
-                            Robot attacked = (Robot) entity;
-                            //Determine damage using RNG
-                            int damage = 1 + Main.random.nextInt(robot.weaponStrength());
-                            int true_damage = Math.max(0, damage - attacked.armorStrength());
-                            Menu.println(String.format("%s attacked %s for %d damage against %d defense for %d", robot.shortString(), attacked.shortString(), damage, attacked.armorStrength(), true_damage));
-                            attacked.damage(true_damage);
-                            if (!attacked.isAlive()) {
-                                locations.remove(attacked);
-                                Menu.println(String.format("%s died!", attacked.shortString()));
-                            }
-                        } else {
-                            Menu.println(String.format("%s  tried to attack somewhere it could not!", robot.shortString()));
-                        }
-                    }
+        TickEvent event = new TickEvent();
+        event.begin();
+        for (BattleObserver observer : observers) {
+            observer.tickStarted(tick);
+        }
+        if (engine != null) {
+            //Robots decide in parallel, see TiledEngine for how their actions are resolved
+            engine.advance(this);
+        } else {
+            //If not done go through all robots that are ALIVE and on the map (this will be in order read and added from file)
+            //DEAD robots are taken out of the turn order as they die, so they cost nothing in later turns
+            for (int index = robots.firstActive(); index != -1; index = robots.nextActive(index)) {
+                //Give the robot a turn to ATTACK or MOVE
+                if (robots.alive[index]) {
+                    takeTurn(index);
                 }
             }
         }
+        for (BattleObserver observer : observers) {
+            observer.tickEnded(tick);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.rows = rows;
+            event.columns = columns;
+            event.maximalsAlive = getAliveMaximals();
+            event.predaConsAlive = getAlivePredaCons();
+            event.parallel = engine != null;
+            event.commit();
+        }
+        tick++;
         checkActive();
     }
 
     /**
-     * Check if simulation has now ended (only one of two versus Robot types is alive)
+     * Let one robot decide and act immediately (the sequential engine)
+     *
+     * @param index The index of the robot taking its turn
      */
-    private void checkActive() {
-        boolean maximal_alive = false;
-        boolean predacon_alive = false;
-        for (Robot robot : robots) {
-            if (robot.isAlive()) {
-                if (robot instanceof PredaCon) {
-                    predacon_alive = true;
-                } else if (robot instanceof Maximal) {
-                    maximal_alive = true;
+    private void takeTurn(int index) {
+        Robot robot = robots.get(index);
+        //Get location of robot (only the battle knows this, the robot does not itself)
+        int row = robots.rows[index];
+        int column = robots.columns[index];
+        DecisionEvent decision = DecisionEvent.start();
+        //Determine if/where a robot wants to attack
+        Direction attackWhere = robot.attackWhere(attackView.centre(row, column));
+        //If I don't attack, then I must be moving
+        if (attackWhere == null) {
+            //Figure out where robot wants to move, and move it if this move is valid
+            Direction moveWhere = robot.chooseMove(moveView.centre(row, column));
+            decided(decision, index, row, column, false);
+            logMove(index, moveWhere, commitMove(index, moveWhere));
+        } else {
+            decided(decision, index, row, column, true);
+            //If we are here our earlier attack question was not null, and we are attacking a nearby robot
+            //Get the robot we are attacking
+            Entity entity = getEntity(row, column, attackWhere);
+            if (entity instanceof Robot) {
+                int target = ((Robot) entity).getId() - 1;
+                AttackEvent attack = AttackEvent.start();
+                //Determine damage using RNG (only if it can be attacked)
+                int damage = robots.alive[target] ? 1 + random.nextInt(robots.weapon[index]) : 0;
+                int trueDamage = commitAttack(target, damage);
+                logAttack(index, target, attackWhere, damage, trueDamage);
+                boolean killed = trueDamage >= 0 && !robots.alive[target];
+                if (killed) {
+                    died(target);
                 }
+                attacked(attack, index, target, damage, trueDamage, killed);
+            } else if (Menu.isLoggable(LogLevel.INFO)) {
+                Menu.println(String.format("%s attacking %s in direction %s", robot.shortString(), entity.getClass(), attackWhere));
+                Menu.println(String.format("%s  tried to attack somewhere it could not!", robot.shortString()));
+            }
+        }
+    }
+
+    /**
+     * Record a robot's decision for the flight recorder (if it is recording them)
+     *
+     * @param event  The event, begun before the robot looked at its local views (null if not recorded)
+     * @param index  The index of the robot
+     * @param row    The row of the robot
+     * @param column The column of the robot
+     * @param attack True if the robot decided to attack, false to move
+     */
+    void decided(DecisionEvent event, int index, int row, int column, boolean attack) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.robot = index;
+            event.row = row;
+            event.column = column;
+            event.attack = attack;
+            event.commit();
+        }
+    }
+
+    /**
+     * Record an attack being resolved for the flight recorder (if it is recording them)
+     *
+     * @param event      The event, begun before the attack was resolved (null if not recorded)
+     * @param index      The index of the attacking robot
+     * @param target     The index of the attacked robot
+     * @param damage     The damage rolled
+     * @param trueDamage The damage done after armor, -1 if the target could not be attacked
+     * @param killed     True if the attack killed the target
+     */
+    void attacked(AttackEvent event, int index, int target, int damage, int trueDamage, boolean killed) {
+        if (event == null) {
+            return;
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = tick;
+            event.robot = index;
+            event.target = target;
+            event.damage = damage;
+            event.trueDamage = trueDamage;
+            event.killed = killed;
+            event.commit();
+        }
+    }
+
+    /**
+     * Move a robot from where it currently is, if it can move on top of whatever is there
+     *
+     * @param index The index of the robot moving
+     * @param d     The direction to move the robot in
+     * @return True if the robot moved
+     */
+    boolean commitMove(int index, Direction d) {
+        int row = robots.rows[index];
+        int column = robots.columns[index];
+        if (canMoveOnTopOf(row, column, d)) {
+            moveEntity(row, column, d);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Damage a robot that is being attacked, if it is still alive to be attacked
+     * (if this kills the robot, died(target) must be called once it is safe to count the death)
+     *
+     * @param target The index of the robot attacked
+     * @param damage The damage rolled by the attacker (before the armor of the target)
+     * @return The damage done after armor, -1 if the target could not be attacked
+     */
+    int commitAttack(int target, int damage) {
+        if (!robots.alive[target]) {
+            return -1;
+        }
+        int trueDamage = Math.max(0, damage - robots.armor[target]);
+        robots.damage(target, trueDamage);
+        return trueDamage;
+    }
+
+    /**
+     * Tell observers about a robot moving (or trying to move) and log it at INFO level
+     *
+     * @param index The index of the robot moving
+     * @param d     The direction it moved in
+     * @param moved True if the robot moved, false if it tried to move somewhere it could not
+     */
+    void logMove(int index, Direction d, boolean moved) {
+        for (BattleObserver observer : observers) {
+            if (moved) {
+                observer.moved(index, d);
+            } else {
+                observer.blocked(index, d);
             }
         }
-        if (!(maximal_alive && predacon_alive)) {
+        if (!Menu.isLoggable(LogLevel.INFO)) {
+            return;
+        }
+        Robot robot = robots.get(index);
+        Menu.println(String.format("%s moving %s", robot.shortString(), d));
+        if (!moved) {
+            //Indicate an invalid attempt to move
+            Menu.println(String.format("%s  tried to move somewhere it could not!", robot.shortString()));
+        }
+    }
+
+    /**
+     * Tell observers about a robot attacking another robot and log it at INFO level
+     *
+     * @param index      The index of the attacking robot
+     * @param target     The index of the attacked robot
+     * @param d          The direction of the attack
+     * @param damage     The damage rolled by the attacker
+     * @param trueDamage The damage done after armor, -1 if the target could not be attacked
+     */
+    void logAttack(int index, int target, Direction d, int damage, int trueDamage) {
+        for (BattleObserver observer : observers) {
+            observer.attacked(index, target, d, damage, trueDamage);
+        }
+        if (!Menu.isLoggable(LogLevel.INFO)) {
+            return;
+        }
+        Robot robot = robots.get(index);
+        Robot attacked = robots.get(target);
+        Menu.println(String.format("%s attacking %s in direction %s", robot.shortString(), attacked.getClass(), d));
+        if (trueDamage >= 0) {
+            Menu.println(String.format("%s attacked %s for %d damage against %d defense for %d", robot.shortString(), attacked.shortString(), damage, robots.armor[target], trueDamage));
+        }
+    }
+
+    /**
+     * Record that a robot has died (killed by commitAttack)
+     *
+     * @param index The index of the robot that died
+     */
+    void died(int index) {
+        robots.died(index);
+        for (BattleObserver observer : observers) {
+            observer.died(index);
+        }
+        if (Menu.isLoggable(LogLevel.INFO)) {
+            Menu.println(String.format("%s died!", robots.get(index).shortString()));
+        }
+    }
+
+    /**
+     * Check if simulation has now ended (only one of two versus Robot types is alive)
+     */
+    private void checkActive() {
+        if (robots.aliveCount(RobotRegistry.MAXIMAL) == 0 || robots.aliveCount(RobotRegistry.PREDACON) == 0) {
             state = State.INACTIVE;
         }
     }
 
+    /**
+     * The number of Maximals that are ALIVE (and on the map)
+     *
+     * @return The number of Maximals still fighting
+     */
+    public int getAliveMaximals() {
+        return robots.aliveCount(RobotRegistry.MAXIMAL);
+    }
+
+    /**
+     * The number of PredaCons that are ALIVE (and on the map)
+     *
+     * @return The number of PredaCons still fighting
+     */
+    public int getAlivePredaCons() {
+        return robots.aliveCount(RobotRegistry.PREDACON);
+    }
+
     /**
      * Move an existing entity
      *
@@ -199,12 +489,23 @@ public class Battle {
      * @param d      The direction to move the entity in
      */
     public void moveEntity(int row, int column, Direction d) {
-        Entity entity = this.getEntity(row, column);
+        if (d == Direction.STAY) {
+            return;
+        }
+        int from = row * columns + column;
         int moveRow = row + d.getRowChange();
         int moveColumn = column + d.getColumnChange();
-        this.battle[moveRow][moveColumn] = entity;
-        this.battle[row][column] = null;
-        this.locations.put(entity, new Integer[]{moveRow, moveColumn});
+        int to = moveRow * columns + moveColumn;
+        removeRobotAt(to);
+        cells[to] = cells[from];
+        cellRobots[to] = cellRobots[from];
+        cells[from] = EMPTY;
+        changedRows[row] = true;
+        changedRows[moveRow] = true;
+        if (cells[to] == ROBOT) {
+            robots.rows[cellRobots[to]] = moveRow;
+            robots.columns[cellRobots[to]] = moveColumn;
+        }
     }
 
     /**
@@ -212,13 +513,32 @@ public class Battle {
      *
      * @param row    The  row location of new entity
      * @param column The  column location of new entity
-     * @param entity The entity to add
+     * @param entity The entity to add (null for floor)
      */
     public void addEntity(int row, int column, Entity entity) {
-        this.battle[row][column] = entity;
-        if (entity instanceof Robot) {
-            this.robots.add((Robot) entity);
-            this.locations.put(entity, new Integer[]{row, column});
+        int cell = row * columns + column;
+        removeRobotAt(cell);
+        changedRows[row] = true;
+        if (entity == null) {
+            cells[cell] = EMPTY;
+        } else if (entity instanceof Wall) {
+            cells[cell] = WALL;
+        } else if (entity instanceof Robot) {
+            cells[cell] = ROBOT;
+            cellRobots[cell] = robots.add((Robot) entity, row, column);
+        } else {
+            throw new IllegalArgumentException("Battle can only store Walls and Robots, not " + entity.getClass().getSimpleName() + "!");
+        }
+    }
+
+    /**
+     * If a robot is in the given cell, record that it is no longer on the map (it is about to be covered)
+     *
+     * @param cell The row major cell index
+     */
+    private void removeRobotAt(int cell) {
+        if (cells[cell] == ROBOT) {
+            robots.removed(cellRobots[cell]);
         }
     }
 
@@ -230,7 +550,18 @@ public class Battle {
      * @return The Entity at the given row, column
      */
     public Entity getEntity(int row, int column) {
-        return this.battle[row][column];
+        if (row < 0 || row >= rows || column < 0 || column >= columns) {
+            throw new ArrayIndexOutOfBoundsException("Location " + row + "," + column + " is outside of the battle!");
+        }
+        int cell = row * columns + column;
+        switch (cells[cell]) {
+            case WALL:
+                return Wall.getWall();
+            case ROBOT:
+                return robots.get(cellRobots[cell]);
+            default:
+                return null;
+        }
     }
 
     /**
@@ -271,10 +602,7 @@ public class Battle {
      * @return True if yes, false otherwise
      */
     public boolean valid(int row, int column) {
-        if(row >=0 && row < battle.length && column >=0 && column < battle[0].length){
-            return true;
-        }
-        return false;
+        return row >= 0 && row < rows && column >= 0 && column < columns;
     }
 
     /**
@@ -359,40 +687,7 @@ public class Battle {
      * @return String version of the battle, '#' for walls, '.' for empty floor, '$' for dead entities
      */
     public String battleString() {
-        StringBuilder sb = new StringBuilder();
-        //Top wall
-        sb.append(String.valueOf(Wall.getWall().getSymbol()).repeat(battle[0].length + 2));
-        sb.append("\n");
-        //Each row
-        for (Entity[] row : battle) {
-            //Start with wall
-            sb.append(Wall.getWall().getSymbol());
-            for (Entity entity : row) {
-                if (entity != null) {
-                    if(entity instanceof Robot) {
-                        if (((Robot)entity).isAlive()) {
-                            //Entity symbol
-                            sb.append(entity.getSymbol());
-                        } else {
-                            //Dead
-                            sb.append(Symbol.DEAD.getSymbol());
-                        }
-                    } else if(entity instanceof Wall) {
-                        sb.append(entity.getSymbol());
-                    }
-                } else {
-                    //Floor
-                    sb.append(Symbol.FLOOR.getSymbol());
-                }
-            }
-            //End with wall
-            sb.append(Wall.getWall().getSymbol());
-            sb.append("\n");
-        }
-        //Bottom wall
-        sb.append(String.valueOf(Wall.getWall().getSymbol()).repeat(battle[0].length + 2));
-        sb.append("\n");
-        return sb.toString();
+        return renderer.battleString();
     }
 
     /**
@@ -402,15 +697,7 @@ public class Battle {
      * @return String version of the game
      */
     public String gameString() {
-        StringBuilder sb = new StringBuilder();
-        sb.append(battleString());
-        //Header for table
-        sb.append("NAME   \tS\tH\tSTATE\tINFO\n");
-        for (Entity e : robots) {
-            sb.append(e.toString());
-            sb.append("\n");
-        }
-        return sb.toString();
+        return renderer.gameString();
     }
 
     @Override
@@ -418,13 +705,56 @@ public class Battle {
         return gameString();
     }
 
+    /**
+     * The registry of robots (for the engines in this package)
+     *
+     * @return The robot registry
+     */
+    RobotRegistry getRegistry() {
+        return robots;
+    }
+
+    /**
+     * The index of the robot at a location (for the engines in this package)
+     *
+     * @param row    The row to check
+     * @param column The column to check
+     * @return The index of the robot (alive or dead) at that location, -1 if there is no robot there
+     */
+    int robotIndexAt(int row, int column) {
+        int cell = row * columns + column;
+        return cells[cell] == ROBOT ? cellRobots[cell] : -1;
+    }
+
+    /**
+     * The number of robots ever added to the battle (alive or dead)
+     *
+     * @return The number of robots
+     */
+    public int getRobotCount() {
+        return robots.size();
+    }
+
+    /**
+     * Get a robot by turn order
+     *
+     * @param index The turn order of the robot (0 is the first robot added)
+     * @return The robot
+     */
+    public Robot getRobot(int index) {
+        if (index < 0 || index >= robots.size()) {
+            throw new IndexOutOfBoundsException("Robot index " + index + " is not in the battle!");
+        }
+        return robots.get(index);
+    }
+
     /**
      * The rows of the battle
      *
      * @return The rows of the battle
      */
     public int getRows() {
-        return battle.length;
+        return rows;
     }
 
     /**
@@ -433,7 +763,46 @@ public class Battle {
      * @return The columns of the battle
      */
     public int getColumns() {
-        return battle[0].length;
+        return columns;
+    }
+
+    /**
+     * The kind of each cell, row major (for BattleSnapshot)
+     *
+     * @return The cells of this battle (not a copy)
+     */
+    byte[] getCells() {
+        return cells;
+    }
+
+    /**
+     * The robot index of each ROBOT cell, row major (for BattleSnapshot)
+     *
+     * @return The cell robots of this battle (not a copy)
+     */
+    int[] getCellRobots() {
+        return cellRobots;
+    }
+
+    /**
+     * The rows of the map changed since the battle was last rendered (for BattleRenderer)
+     *
+     * @return The changed rows of this battle (not a copy)
+     */
+    boolean[] getChangedRows() {
+        return changedRows;
+    }
+
+    /**
+     * Set the tick and whether the battle is still ACTIVE (for BattleSnapshot, after its cells and robots were restored)
+     *
+     * @param tick   The number of times the simulation has been advanced
+     * @param active True if ACTIVE, false if INACTIVE
+     */
+    void restore(int tick, boolean active) {
+        renderer.invalidate();
+        this.tick = tick;
+        this.state = active ? State.ACTIVE : State.INACTIVE;
     }
 
     /**
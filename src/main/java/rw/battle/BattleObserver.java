@@ -0,0 +1,67 @@
+package rw.battle;
+
+import rw.enums.Direction;
+
+/**
+ * Told about everything that happens as a Battle is advanced, in the order it is logged
+ * Robots are given by index (as in Battle.getRobot(index)), every method does nothing unless overridden
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public interface BattleObserver {
+
+    /**
+     * A simulation step is starting
+     *
+     * @param tick The number of steps completed before this one
+     */
+    default void tickStarted(int tick) {
+    }
+
+    /**
+     * A simulation step has finished
+     *
+     * @param tick The same number as given to tickStarted(tick)
+     */
+    default void tickEnded(int tick) {
+    }
+
+    /**
+     * A robot moved
+     *
+     * @param robot The index of the robot
+     * @param d     The direction it moved in
+     */
+    default void moved(int robot, Direction d) {
+    }
+
+    /**
+     * A robot tried to move somewhere it could not
+     *
+     * @param robot The index of the robot
+     * @param d     The direction it tried to move in
+     */
+    default void blocked(int robot, Direction d) {
+    }
+
+    /**
+     * A robot attacked another robot
+     *
+     * @param robot      The index of the attacking robot
+     * @param target     The index of the attacked robot
+     * @param d          The direction of the attack
+     * @param damage     The damage rolled
+     * @param trueDamage The damage done after armor, -1 if the target was already DEAD
+     */
+    default void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+    }
+
+    /**
+     * A robot died
+     *
+     * @param robot The index of the robot
+     */
+    default void died(int robot) {
+    }
+}
@@ -0,0 +1,248 @@
+package rw.battle;
+
+import rw.enums.Symbol;
+import rw.jfr.RenderEvent;
+
+import java.util.Arrays;
+
+/**
+ * Renders a battle as text for battleString() and gameString(), keeping what was rendered between calls
+ * The map is kept as characters in which only the rows that changed are drawn again, and each robot line is kept and only
+ * made again once the robot changed. Robot lines are only made when gameString() is called, battleString() never needs
+ * them. The battle marks the rows changed by moves and additions, the registry marks the robots changed by damage (the
+ * row of a changed robot is drawn again too, as it may have died).
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+final class BattleRenderer {
+
+    /**
+     * Header of the robot table of gameString()
+     */
+    private static final String TABLE_HEADER = "NAME   \tS\tH\tSTATE\tINFO\n";
+
+    /**
+     * The battle rendered
+     */
+    private final Battle battle;
+    /**
+     * The map of the battle, with its outer wall, a line per row ((rows + 2) x (columns + 3) characters), null until first rendered
+     */
+    private char[] map;
+    /**
+     * The line of each robot (without its new line), in turn order
+     */
+    private String[] robotLines = new String[16];
+    /**
+     * Is the line of each robot out of date
+     */
+    private boolean[] staleLines = new boolean[16];
+    /**
+     * The total length of the robot lines
+     */
+    private long robotLength;
+    /**
+     * The map as last returned (null once the map changed)
+     */
+    private String battleString;
+    /**
+     * The game as last returned (null once the map or a robot changed)
+     */
+    private String gameString;
+
+    /**
+     * A renderer of a battle
+     *
+     * @param battle The battle to render
+     */
+    BattleRenderer(Battle battle) {
+        this.battle = battle;
+    }
+
+    /**
+     * The map of the battle
+     *
+     * @return String version of the battle, '#' for walls, '.' for empty floor, '$' for dead entities
+     */
+    String battleString() {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        int rowsDrawn = update();
+        if (battleString == null) {
+            battleString = new String(map);
+        }
+        rendered(event, false, rowsDrawn, 0, battleString);
+        return battleString;
+    }
+
+    /**
+     * The map of the battle followed by a table of every robot
+     *
+     * @return String version of the game
+     */
+    String gameString() {
+        RenderEvent event = new RenderEvent();
+        event.begin();
+        int rowsDrawn = update();
+        int linesBuilt = 0;
+        if (gameString == null) {
+            RobotRegistry robots = battle.getRegistry();
+            for (int index = 0; index < robots.size(); index++) {
+                if (staleLines[index]) {
+                    staleLines[index] = false;
+                    linesBuilt++;
+                    String line = robots.get(index).toString();
+                    if (robotLines[index] != null) {
+                        robotLength -= robotLines[index].length();
+                    }
+                    robotLength += line.length();
+                    robotLines[index] = line;
+                }
+            }
+            //Copied straight into one array, the map alone can be millions of characters
+            char[] game = new char[Math.toIntExact(map.length + TABLE_HEADER.length() + robotLength + robots.size())];
+            System.arraycopy(map, 0, game, 0, map.length);
+            int position = map.length;
+            TABLE_HEADER.getChars(0, TABLE_HEADER.length(), game, position);
+            position += TABLE_HEADER.length();
+            for (int index = 0; index < robots.size(); index++) {
+                String line = robotLines[index];
+                line.getChars(0, line.length(), game, position);
+                position += line.length();
+                game[position++] = '\n';
+            }
+            gameString = new String(game);
+        }
+        rendered(event, true, rowsDrawn, linesBuilt, gameString);
+        return gameString;
+    }
+
+    /**
+     * Record a render for the flight recorder (if it is recording them)
+     *
+     * @param event      The event, begun before rendering
+     * @param game       True if the game was rendered, false for only the map
+     * @param rowsDrawn  The rows of the map drawn again
+     * @param linesBuilt The lines of the table of robots built again
+     * @param text       The text rendered
+     */
+    private void rendered(RenderEvent event, boolean game, int rowsDrawn, int linesBuilt, String text) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.tick = battle.getTick();
+            event.game = game;
+            event.rows = battle.getRows();
+            event.columns = battle.getColumns();
+            event.rowsDrawn = rowsDrawn;
+            event.robotLinesBuilt = linesBuilt;
+            event.length = text.length();
+            event.commit();
+        }
+    }
+
+    /**
+     * Forget everything rendered (the battle was changed without marking what changed)
+     */
+    void invalidate() {
+        map = null;
+        battleString = null;
+        gameString = null;
+    }
+
+    /**
+     * Draw again the rows that changed since last rendered and mark the lines of robots that changed as out of date
+     * (everything if nothing was rendered yet)
+     *
+     * @return The number of rows drawn again
+     */
+    private int update() {
+        RobotRegistry robots = battle.getRegistry();
+        boolean[] changedRows = battle.getChangedRows();
+        boolean everything = map == null;
+        if (everything) {
+            drawOuterWall();
+            Arrays.fill(changedRows, true);
+        }
+        if (robotLines.length < robots.size()) {
+            robotLines = Arrays.copyOf(robotLines, Math.max(robots.size(), robotLines.length * 2));
+            staleLines = Arrays.copyOf(staleLines, robotLines.length);
+        }
+        //Robots first, their rows are drawn again below
+        for (int index = 0; index < robots.size(); index++) {
+            if (everything || robots.changed[index]) {
+                robots.changed[index] = false;
+                staleLines[index] = true;
+                if (robots.rows[index] != RobotRegistry.OFF_MAP) {
+                    changedRows[robots.rows[index]] = true;
+                }
+                gameString = null;
+            }
+        }
+        int rowsDrawn = 0;
+        for (int row = 0; row < changedRows.length; row++) {
+            if (changedRows[row]) {
+                changedRows[row] = false;
+                drawRow(row);
+                rowsDrawn++;
+                battleString = null;
+                gameString = null;
+            }
+        }
+        return rowsDrawn;
+    }
+
+    /**
+     * Make the map and draw the outer wall (the top and bottom rows, and the first and last character of every row)
+     */
+    private void drawOuterWall() {
+        int rows = battle.getRows();
+        int width = battle.getColumns() + 3;
+        char wall = Wall.getWall().getSymbol();
+        map = new char[(rows + 2) * width];
+        //Top wall
+        Arrays.fill(map, 0, width - 1, wall);
+        map[width - 1] = '\n';
+        //Each row starts and ends with wall
+        for (int row = 1; row <= rows; row++) {
+            map[row * width] = wall;
+            map[row * width + width - 2] = wall;
+            map[row * width + width - 1] = '\n';
+        }
+        //Bottom wall
+        Arrays.fill(map, (rows + 1) * width, map.length - 1, wall);
+        map[map.length - 1] = '\n';
+    }
+
+    /**
+     * Draw the cells of a row of the battle into the map
+     *
+     * @param row The row to draw
+     */
+    private void drawRow(int row) {
+        byte[] cells = battle.getCells();
+        int[] cellRobots = battle.getCellRobots();
+        RobotRegistry robots = battle.getRegistry();
+        int columns = battle.getColumns();
+        int position = (row + 1) * (columns + 3) + 1;
+        for (int cell = row * columns; cell < (row + 1) * columns; cell++) {
+            switch (cells[cell]) {
+                case Battle.ROBOT:
+                    if (robots.alive[cellRobots[cell]]) {
+                        //Entity symbol
+                        map[position++] = robots.get(cellRobots[cell]).getSymbol();
+                    } else {
+                        //Dead
+                        map[position++] = Symbol.DEAD.getSymbol();
+                    }
+                    break;
+                case Battle.WALL:
+                    map[position++] = Wall.getWall().getSymbol();
+                    break;
+                default:
+                    //Floor
+                    map[position++] = Symbol.FLOOR.getSymbol();
+            }
+        }
+    }
+}
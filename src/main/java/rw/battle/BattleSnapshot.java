@@ -0,0 +1,388 @@
+package rw.battle;
+
+import rw.enums.WeaponType;
+import rw.util.RandomSource;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Saves the complete state of a Battle to a compact binary file and restores it, so a battle can be resumed (or branched)
+ * from the tick it was saved at and carry on exactly as it would have
+ * <p>
+ * Layout (big-endian):
+ * <ul>
+ * <li>Header: magic "RWS1" (int), version (int), rows (int), columns (int), tick (int), ACTIVE (byte),
+ * random name (short length and UTF-8 bytes), random state (long), number of robots (int)</li>
+ * <li>Robot table in turn order: faction (byte), symbol (char), weapon type ordinal of a PredaCon (byte, -1 for a Maximal),
+ * weapon strength (int), armor strength (int), name (short length and UTF-8 bytes)</li>
+ * <li>Cell kinds (byte per cell) and cell robots (int per cell), row major</li>
+ * <li>Robot health (int), ALIVE (byte), counted (byte), row (int) and column (int), each as an array in turn order</li>
+ * </ul>
+ * The engine and observers of a battle are not saved.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class BattleSnapshot {
+
+    /**
+     * "RWS1" at the start of every snapshot
+     */
+    private static final int MAGIC = 0x52575331;
+    /**
+     * Version of the layout written
+     */
+    private static final int VERSION = 1;
+    /**
+     * Size of the buffer the file is read and written through
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Cached copy of WeaponType.values()
+     */
+    private static final WeaponType[] WEAPON_TYPES = WeaponType.values();
+
+    /**
+     * The file being read or written
+     */
+    private final FileChannel channel;
+    /**
+     * The buffer the file is read and written through
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * A snapshot file being read or written
+     *
+     * @param channel The file
+     */
+    private BattleSnapshot(FileChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Save a battle (replacing the file only once it is completely written, so a crash never leaves half a snapshot)
+     *
+     * @param battle The battle to save
+     * @param file   The file to save to
+     */
+    public static void write(Battle battle, File file) {
+        Path path = file.toPath().toAbsolutePath();
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                BattleSnapshot snapshot = new BattleSnapshot(channel);
+                snapshot.write(battle);
+                snapshot.flush();
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem writing snapshot " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Restore a saved battle (each call gives a new battle, so several can branch from one snapshot)
+     *
+     * @param file The file to restore from
+     * @return The battle as it was saved
+     */
+    public static Battle read(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            BattleSnapshot snapshot = new BattleSnapshot(channel);
+            snapshot.buffer.limit(0);
+            return snapshot.read(file.getName());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem reading snapshot " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Write every part of a battle
+     *
+     * @param battle The battle to write
+     * @throws IOException If the file cannot be written
+     */
+    private void write(Battle battle) throws IOException {
+        RobotRegistry robots = battle.getRegistry();
+        int count = robots.size();
+        ensureSpace(20);
+        buffer.putInt(MAGIC).putInt(VERSION).putInt(battle.getRows()).putInt(battle.getColumns()).putInt(battle.getTick());
+        ensureSpace(1);
+        buffer.put((byte) (battle.isActive() ? 1 : 0));
+        putString(battle.getRandom().getName());
+        ensureSpace(12);
+        buffer.putLong(battle.getRandom().getState()).putInt(count);
+        for (int index = 0; index < count; index++) {
+            Robot robot = robots.get(index);
+            ensureSpace(12);
+            buffer.put(robots.faction[index]).putChar(robot.getSymbol())
+                    .put((byte) (robot instanceof PredaCon ? ((PredaCon) robot).getWeaponType().ordinal() : -1))
+                    .putInt(robots.weapon[index]).putInt(robots.armor[index]);
+            putString(robot.getName());
+        }
+        putBytes(battle.getCells());
+        putInts(battle.getCellRobots(), battle.getCellRobots().length);
+        putInts(robots.health, count);
+        putBooleans(robots.alive, count);
+        putBooleans(robots.counted, count);
+        putInts(robots.rows, count);
+        putInts(robots.columns, count);
+    }
+
+    /**
+     * Read every part of a battle
+     *
+     * @param name The name of the file (for errors)
+     * @return The battle read
+     * @throws IOException If the file cannot be read
+     */
+    private Battle read(String name) throws IOException {
+        if (!fill(8) || buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("File " + name + " is not a battle snapshot!");
+        }
+        if (buffer.getInt() != VERSION) {
+            throw new IllegalArgumentException("Snapshot " + name + " is of an unknown version!");
+        }
+        require(13, name);
+        int rows = buffer.getInt();
+        int columns = buffer.getInt();
+        int tick = buffer.getInt();
+        boolean active = buffer.get() != 0;
+        RandomSource random = RandomSource.of(getString(name), 0);
+        require(12, name);
+        random.setState(buffer.getLong());
+        int count = buffer.getInt();
+        if (rows < 0 || columns < 0 || count < 0) {
+            throw new IllegalArgumentException("Snapshot " + name + " is damaged!");
+        }
+
+        Battle battle = new Battle(rows, columns);
+        battle.setRandom(random);
+        RobotRegistry robots = battle.getRegistry();
+        for (int index = 0; index < count; index++) {
+            require(12, name);
+            byte faction = buffer.get();
+            char symbol = buffer.getChar();
+            byte weaponType = buffer.get();
+            int weapon = buffer.getInt();
+            int armor = buffer.getInt();
+            String robotName = getString(name);
+            Robot robot;
+            if (faction == RobotRegistry.MAXIMAL) {
+                robot = new Maximal(symbol, robotName, 0, weapon, armor);
+            } else if (faction == RobotRegistry.PREDACON && weaponType >= 0 && weaponType < WEAPON_TYPES.length) {
+                robot = new PredaCon(symbol, robotName, 0, WEAPON_TYPES[weaponType]);
+            } else {
+                throw new IllegalArgumentException("Snapshot " + name + " is damaged!");
+            }
+            //Location, health and state are restored below
+            robots.add(robot, RobotRegistry.OFF_MAP, RobotRegistry.OFF_MAP);
+        }
+        getBytes(battle.getCells(), name);
+        getInts(battle.getCellRobots(), battle.getCellRobots().length, name);
+        getInts(robots.health, count, name);
+        getBooleans(robots.alive, count, name);
+        getBooleans(robots.counted, count, name);
+        getInts(robots.rows, count, name);
+        getInts(robots.columns, count, name);
+        robots.recount();
+        battle.restore(tick, active);
+        return battle;
+    }
+
+    /**
+     * Write the buffer to the file and empty it
+     *
+     * @throws IOException If the file cannot be written
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Make room in the buffer (writing it to the file if needed)
+     *
+     * @param bytes The bytes needed, at most BUFFER_SIZE
+     * @throws IOException If the file cannot be written
+     */
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Write a string as a short length and UTF-8 bytes
+     *
+     * @param value The string
+     * @throws IOException If the file cannot be written
+     */
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Name " + value.substring(0, 20) + "... is too long to save!");
+        }
+        ensureSpace(2 + bytes.length);
+        buffer.putShort((short) bytes.length).put(bytes);
+    }
+
+    /**
+     * Write a whole byte array
+     *
+     * @param values The array
+     * @throws IOException If the file cannot be written
+     */
+    private void putBytes(byte[] values) throws IOException {
+        for (int offset = 0; offset < values.length; ) {
+            ensureSpace(1);
+            int length = Math.min(values.length - offset, buffer.remaining());
+            buffer.put(values, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Write the start of an int array
+     *
+     * @param values The array
+     * @param count  The number of values to write
+     * @throws IOException If the file cannot be written
+     */
+    private void putInts(int[] values, int count) throws IOException {
+        for (int offset = 0; offset < count; ) {
+            ensureSpace(Integer.BYTES);
+            int length = Math.min(count - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().put(values, offset, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            offset += length;
+        }
+    }
+
+    /**
+     * Write the start of a boolean array as a byte per value
+     *
+     * @param values The array
+     * @param count  The number of values to write
+     * @throws IOException If the file cannot be written
+     */
+    private void putBooleans(boolean[] values, int count) throws IOException {
+        for (int index = 0; index < count; index++) {
+            ensureSpace(1);
+            buffer.put((byte) (values[index] ? 1 : 0));
+        }
+    }
+
+    /**
+     * Read from the file until the buffer holds at least the given number of bytes (or the file ends)
+     *
+     * @param bytes The bytes needed, at most BUFFER_SIZE
+     * @return True if the buffer holds the bytes
+     * @throws IOException If the file cannot be read
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && channel.read(buffer) >= 0) {
+            //Keep reading until enough is buffered or the file ends
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+
+    /**
+     * Read from the file until the buffer holds at least the given number of bytes
+     *
+     * @param bytes The bytes needed, at most BUFFER_SIZE
+     * @param name  The name of the file (for errors)
+     * @throws IOException If the file cannot be read
+     */
+    private void require(int bytes, String name) throws IOException {
+        if (!fill(bytes)) {
+            throw new IllegalArgumentException("Snapshot " + name + " ends too soon!");
+        }
+    }
+
+    /**
+     * Read a string written by putString(value)
+     *
+     * @param name The name of the file (for errors)
+     * @return The string
+     * @throws IOException If the file cannot be read
+     */
+    private String getString(String name) throws IOException {
+        require(2, name);
+        int length = buffer.getShort();
+        if (length < 0) {
+            throw new IllegalArgumentException("Snapshot " + name + " is damaged!");
+        }
+        require(length, name);
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Read a whole byte array
+     *
+     * @param values The array to fill
+     * @param name   The name of the file (for errors)
+     * @throws IOException If the file cannot be read
+     */
+    private void getBytes(byte[] values, String name) throws IOException {
+        for (int offset = 0; offset < values.length; ) {
+            require(1, name);
+            int length = Math.min(values.length - offset, buffer.remaining());
+            buffer.get(values, offset, length);
+            offset += length;
+        }
+    }
+
+    /**
+     * Read the start of an int array
+     *
+     * @param values The array to fill
+     * @param count  The number of values to read
+     * @param name   The name of the file (for errors)
+     * @throws IOException If the file cannot be read
+     */
+    private void getInts(int[] values, int count, String name) throws IOException {
+        for (int offset = 0; offset < count; ) {
+            require(Integer.BYTES, name);
+            int length = Math.min(count - offset, buffer.remaining() / Integer.BYTES);
+            buffer.asIntBuffer().get(values, offset, length);
+            buffer.position(buffer.position() + length * Integer.BYTES);
+            offset += length;
+        }
+    }
+
+    /**
+     * Read the start of a boolean array written as a byte per value
+     *
+     * @param values The array to fill
+     * @param count  The number of values to read
+     * @param name   The name of the file (for errors)
+     * @throws IOException If the file cannot be read
+     */
+    private void getBooleans(boolean[] values, int count, String name) throws IOException {
+        for (int index = 0; index < count; index++) {
+            require(1, name);
+            values[index] = buffer.get() != 0;
+        }
+    }
+}
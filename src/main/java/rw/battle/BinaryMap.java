@@ -0,0 +1,274 @@
+package rw.battle;
+
+import rw.enums.WeaponType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A compact binary world map, loaded through memory-mapped sections of the file straight into a Battle's storage
+ * (rw.util.Reader recognises these files, rw.util.Writer can write them)
+ * <p>
+ * Layout (big-endian):
+ * <ul>
+ * <li>Header: magic "RWM1" (int), version (int), rows (int), columns (int), number of robots (int),
+ * number of strings (int), then the offsets of the cell plane, robot table and string table (long each)</li>
+ * <li>Cell plane: the kind of every cell (row major) packed 2 bits per cell, 4 cells per byte starting at the low bits
+ * (0 floor, 1 wall, 2 robot)</li>
+ * <li>Robot table in turn order, ROBOT_SIZE bytes per robot: row (int), column (int), faction (byte),
+ * weapon type ordinal of a PredaCon (byte, -1 for a Maximal), symbol (char), name (int index into the string table),
+ * health (int), weapon strength (int), armor strength (int)</li>
+ * <li>String table: the end of each string (int per string, relative to the first string), then the UTF-8 bytes of every
+ * string (names shared by several robots are stored once)</li>
+ * </ul>
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class BinaryMap {
+
+    /**
+     * "RWM1" at the start of every binary map
+     */
+    private static final int MAGIC = 0x52574D31;
+    /**
+     * Version of the layout written
+     */
+    private static final int VERSION = 1;
+    /**
+     * Bytes in the header
+     */
+    private static final int HEADER_SIZE = 48;
+    /**
+     * Bytes per robot in the robot table
+     */
+    private static final int ROBOT_SIZE = 28;
+    /**
+     * Size of the buffer the file is written through
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Cached copy of WeaponType.values()
+     */
+    private static final WeaponType[] WEAPON_TYPES = WeaponType.values();
+
+    /**
+     * Not made, only static methods
+     */
+    private BinaryMap() {
+    }
+
+    /**
+     * Is a file a binary map (checks only its first bytes)
+     *
+     * @param file The file to check
+     * @return True if the file starts as a binary map does
+     */
+    public static boolean isBinaryMap(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining() && channel.read(magic) >= 0) {
+                //Keep reading until the magic is read or the file ends
+            }
+            return !magic.hasRemaining() && magic.getInt(0) == MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Save the map of a battle, the walls and every robot on the map with its current health
+     *
+     * @param battle The battle to save
+     * @param file   The file to save to
+     */
+    public static void write(Battle battle, File file) {
+        byte[] cells = battle.getCells();
+        RobotRegistry robots = battle.getRegistry();
+        //Robots on the map, in turn order, and their names without repeats
+        List<Integer> mapRobots = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<byte[]> strings = new ArrayList<>();
+        for (int index = 0; index < robots.size(); index++) {
+            if (robots.rows[index] != RobotRegistry.OFF_MAP) {
+                mapRobots.add(index);
+                String name = robots.get(index).getName();
+                if (!stringIndex.containsKey(name)) {
+                    stringIndex.put(name, strings.size());
+                    strings.add(name.getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+        long planeOffset = HEADER_SIZE;
+        long robotOffset = planeOffset + (cells.length + 3L) / 4;
+        long stringOffset = robotOffset + (long) ROBOT_SIZE * mapRobots.size();
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(battle.getRows()).putInt(battle.getColumns())
+                    .putInt(mapRobots.size()).putInt(strings.size())
+                    .putLong(planeOffset).putLong(robotOffset).putLong(stringOffset);
+            for (int cell = 0; cell < cells.length; cell += 4) {
+                int packed = 0;
+                for (int i = 0; i < 4 && cell + i < cells.length; i++) {
+                    packed |= cells[cell + i] << (2 * i);
+                }
+                ensureSpace(channel, buffer, 1);
+                buffer.put((byte) packed);
+            }
+            for (int index : mapRobots) {
+                Robot robot = robots.get(index);
+                ensureSpace(channel, buffer, ROBOT_SIZE);
+                buffer.putInt(robots.rows[index]).putInt(robots.columns[index]).put(robots.faction[index])
+                        .put((byte) (robot instanceof PredaCon ? ((PredaCon) robot).getWeaponType().ordinal() : -1))
+                        .putChar(robot.getSymbol()).putInt(stringIndex.get(robot.getName()))
+                        .putInt(robots.health[index]).putInt(robots.weapon[index]).putInt(robots.armor[index]);
+            }
+            int end = 0;
+            for (byte[] string : strings) {
+                end += string.length;
+                ensureSpace(channel, buffer, 4);
+                buffer.putInt(end);
+            }
+            for (byte[] string : strings) {
+                for (int offset = 0; offset < string.length; ) {
+                    ensureSpace(channel, buffer, 1);
+                    int length = Math.min(string.length - offset, buffer.remaining());
+                    buffer.put(string, offset, length);
+                    offset += length;
+                }
+            }
+            flush(channel, buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem writing battle to file " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Load a binary map
+     *
+     * @param file The file to load
+     * @return A new battle of the map
+     */
+    public static Battle read(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size < HEADER_SIZE) {
+                throw new IllegalArgumentException("File " + file.getName() + " is not a binary map!");
+            }
+            MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException("File " + file.getName() + " is not a binary map!");
+            }
+            if (header.getInt() != VERSION) {
+                throw new IllegalArgumentException("Binary map " + file.getName() + " is of an unknown version!");
+            }
+            int rows = header.getInt();
+            int columns = header.getInt();
+            int robotCount = header.getInt();
+            int stringCount = header.getInt();
+            long planeOffset = header.getLong();
+            long robotOffset = header.getLong();
+            long stringOffset = header.getLong();
+            long planeSize = ((long) rows * columns + 3) / 4;
+            if (rows < 0 || columns < 0 || robotCount < 0 || stringCount < 0 || planeOffset + planeSize > size
+                    || robotOffset + (long) ROBOT_SIZE * robotCount > size || stringOffset + 4L * stringCount > size) {
+                throw new IllegalArgumentException("Binary map " + file.getName() + " is damaged!");
+            }
+
+            Battle battle = new Battle(rows, columns);
+            //Walls go straight into the cells, robots are added from the robot table
+            byte[] cells = battle.getCells();
+            MappedByteBuffer plane = channel.map(FileChannel.MapMode.READ_ONLY, planeOffset, planeSize);
+            for (int cell = 0; cell < cells.length; cell += 4) {
+                int packed = plane.get();
+                for (int i = 0; i < 4 && cell + i < cells.length; i++) {
+                    if (((packed >> (2 * i)) & 3) == Battle.WALL) {
+                        cells[cell + i] = Battle.WALL;
+                    }
+                }
+            }
+
+            String[] strings = new String[stringCount];
+            MappedByteBuffer stringTable = channel.map(FileChannel.MapMode.READ_ONLY, stringOffset, size - stringOffset);
+            int start = 0;
+            for (int i = 0; i < stringCount; i++) {
+                int end = stringTable.getInt(4 * i);
+                if (end < start || 4L * stringCount + end > size - stringOffset) {
+                    throw new IllegalArgumentException("Binary map " + file.getName() + " is damaged!");
+                }
+                byte[] bytes = new byte[end - start];
+                stringTable.get(4 * stringCount + start, bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+                start = end;
+            }
+
+            MappedByteBuffer table = channel.map(FileChannel.MapMode.READ_ONLY, robotOffset, (long) ROBOT_SIZE * robotCount);
+            for (int index = 0; index < robotCount; index++) {
+                int row = table.getInt();
+                int column = table.getInt();
+                byte faction = table.get();
+                byte weaponType = table.get();
+                char symbol = table.getChar();
+                int name = table.getInt();
+                int health = table.getInt();
+                int weapon = table.getInt();
+                int armor = table.getInt();
+                if (!battle.valid(row, column) || name < 0 || name >= stringCount || health < 0) {
+                    throw new IllegalArgumentException("Binary map " + file.getName() + " is damaged!");
+                }
+                Robot robot;
+                if (faction == RobotRegistry.MAXIMAL) {
+                    robot = new Maximal(symbol, strings[name], health, weapon, armor);
+                } else if (faction == RobotRegistry.PREDACON && weaponType >= 0 && weaponType < WEAPON_TYPES.length) {
+                    robot = new PredaCon(symbol, strings[name], health, WEAPON_TYPES[weaponType]);
+                } else {
+                    throw new IllegalArgumentException("Binary map " + file.getName() + " is damaged!");
+                }
+                battle.addEntity(row, column, robot);
+            }
+            return battle;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem reading file " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Make room in the buffer, writing it to the file if needed
+     *
+     * @param channel The file
+     * @param buffer  The buffer
+     * @param bytes   The bytes needed
+     * @throws IOException If the file cannot be written
+     */
+    private static void ensureSpace(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    /**
+     * Write the buffer to the file and empty it
+     *
+     * @param channel The file
+     * @param buffer  The buffer
+     * @throws IOException If the file cannot be written
+     */
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
@@ -0,0 +1,118 @@
+package rw.battle;
+
+import rw.enums.Direction;
+
+import java.util.Arrays;
+
+/**
+ * Robot actions recorded while a TiledEngine commits them (possibly on another thread),
+ * so they can be logged later in a fixed order on one thread.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+final class EventBuffer {
+
+    /**
+     * A robot moved
+     */
+    private static final int MOVED = 0;
+    /**
+     * A robot tried to move somewhere it could not
+     */
+    private static final int BLOCKED = 1;
+    /**
+     * A robot attacked (and the target survived, or could not be attacked)
+     */
+    private static final int ATTACKED = 2;
+    /**
+     * A robot attacked and the target died
+     */
+    private static final int KILLED = 3;
+    /**
+     * Each event is stored as {kind, robot, direction, target, damage, true damage}
+     */
+    private static final int EVENT_SIZE = 6;
+    /**
+     * Cached copy of Direction.values()
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The events, EVENT_SIZE ints per event
+     */
+    private int[] events = new int[EVENT_SIZE * 16];
+    /**
+     * The number of ints used in events
+     */
+    private int size;
+
+    /**
+     * Record a robot moving (or trying to move)
+     *
+     * @param index The index of the robot
+     * @param d     The direction it moved in
+     * @param moved True if it moved
+     */
+    void move(int index, Direction d, boolean moved) {
+        add(moved ? MOVED : BLOCKED, index, d.ordinal(), 0, 0, 0);
+    }
+
+    /**
+     * Record a robot attacking another robot
+     *
+     * @param index      The index of the attacking robot
+     * @param target     The index of the attacked robot
+     * @param d          The direction of the attack
+     * @param damage     The damage rolled
+     * @param trueDamage The damage done after armor, -1 if the target could not be attacked
+     * @param killed     True if the attack killed the target
+     */
+    void attack(int index, int target, Direction d, int damage, int trueDamage, boolean killed) {
+        add(killed ? KILLED : ATTACKED, index, d.ordinal(), target, damage, trueDamage);
+    }
+
+    /**
+     * Add one event
+     *
+     * @param kind       The kind of event
+     * @param index      The index of the acting robot
+     * @param direction  The ordinal of the direction acted in
+     * @param target     The index of the attacked robot (attacks only)
+     * @param damage     The damage rolled (attacks only)
+     * @param trueDamage The damage done after armor (attacks only)
+     */
+    private void add(int kind, int index, int direction, int target, int damage, int trueDamage) {
+        if (size + EVENT_SIZE > events.length) {
+            events = Arrays.copyOf(events, events.length * 2);
+        }
+        events[size++] = kind;
+        events[size++] = index;
+        events[size++] = direction;
+        events[size++] = target;
+        events[size++] = damage;
+        events[size++] = trueDamage;
+    }
+
+    /**
+     * Log every recorded event through the battle in the order recorded, and empty the buffer
+     *
+     * @param battle The battle the events happened in
+     */
+    void publish(Battle battle) {
+        for (int i = 0; i < size; i += EVENT_SIZE) {
+            int kind = events[i];
+            int index = events[i + 1];
+            Direction d = DIRECTIONS[events[i + 2]];
+            if (kind == MOVED || kind == BLOCKED) {
+                battle.logMove(index, d, kind == MOVED);
+            } else {
+                battle.logAttack(index, events[i + 3], d, events[i + 4], events[i + 5]);
+                if (kind == KILLED) {
+                    battle.died(events[i + 3]);
+                }
+            }
+        }
+        size = 0;
+    }
+}
@@ -0,0 +1,223 @@
+package rw.battle;
+
+import rw.enums.Direction;
+import rw.util.RandomSource;
+
+/**
+ * A read-only window of odd size 3,5,7,9... onto a Battle, centred around a given row,column
+ * Local coordinates are translated onto the parent battle on every look up, so no entities are copied
+ * Anything outside of the parent battle reads as a Wall
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class LocalView {
+
+    /**
+     * The battle this view looks into
+     */
+    private final Battle battle;
+    /**
+     * The size of the (square) view
+     */
+    private final int size;
+    /**
+     * The parent row that local row 0 maps to
+     */
+    private int rowOffset;
+    /**
+     * The parent column that local column 0 maps to
+     */
+    private int columnOffset;
+    /**
+     * The random number generator robots see through this view, null to use the one of the battle
+     */
+    private RandomSource random;
+
+    /**
+     * A new view of SIZExSIZE onto the given battle (centre it with centre(row, column) before use)
+     *
+     * @param battle The battle to look into
+     * @param size   The size of view, must be 3,5,7,...
+     */
+    LocalView(Battle battle, int size) {
+        //Check that size is large enough, and is an odd number
+        if (size < 3 || size % 2 != 1) {
+            throw new IllegalArgumentException("Local size must be 3,5,7,...!");
+        }
+        this.battle = battle;
+        this.size = size;
+    }
+
+    /**
+     * Move the view so it is centred around given row,column of the parent battle
+     *
+     * @param centreRow    The row to centre view around
+     * @param centreColumn The column to centre view around
+     * @return This view (for chaining)
+     */
+    LocalView centre(int centreRow, int centreColumn) {
+        final int ADJ = (size - 1) / 2;
+        this.rowOffset = centreRow - ADJ;
+        this.columnOffset = centreColumn - ADJ;
+        return this;
+    }
+
+    /**
+     * Give robots looking through this view a different random number generator than the battle's
+     *
+     * @param random The random number generator, null to use the one of the battle
+     */
+    void setRandom(RandomSource random) {
+        this.random = random;
+    }
+
+    /**
+     * Get entity at a local location
+     *
+     * @param row    The local row of the entity
+     * @param column The local column of the entity
+     * @return The Entity at the given row, column (Wall if outside the parent battle)
+     */
+    public Entity getEntity(int row, int column) {
+        int battleRow = rowOffset + row;
+        int battleColumn = columnOffset + column;
+        //If the lookup is for something outside battle, then we see a Wall
+        if (!battle.valid(battleRow, battleColumn)) {
+            return Wall.getWall();
+        }
+        return battle.getEntity(battleRow, battleColumn);
+    }
+
+    /**
+     * Get entity at a local location
+     *
+     * @param row    The local row of the entity
+     * @param column The local column of the entity
+     * @param d      The direction adjust look up towards
+     * @return The Entity at the given row, column (Wall if outside the parent battle)
+     */
+    public Entity getEntity(int row, int column, Direction d) {
+        return getEntity(row + d.getRowChange(), column + d.getColumnChange());
+    }
+
+    /**
+     * Is an index within the view
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @return True if yes, false otherwise
+     */
+    public boolean valid(int row, int column) {
+        return row >= 0 && row < size && column >= 0 && column < size;
+    }
+
+    /**
+     * See if we can move to local location
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @return True if we can move to that location
+     */
+    public boolean canMoveOnTopOf(int row, int column) {
+        if (!valid(row, column)) {
+            return false;
+        }
+        Entity entity = getEntity(row, column);
+        if (entity == null) {
+            return true;
+        }
+        return entity.canMoveOnTopOf();
+    }
+
+    /**
+     * See if we can move to local location
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @param d      The direction adjust look up towards
+     * @return True if we can move to that location
+     */
+    public boolean canMoveOnTopOf(int row, int column, Direction d) {
+        return canMoveOnTopOf(row + d.getRowChange(), column + d.getColumnChange());
+    }
+
+    /**
+     * See if we can attack entity at a local location
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @return True if we can attack entity at that location
+     */
+    public boolean canBeAttacked(int row, int column) {
+        if (!valid(row, column)) {
+            return false;
+        }
+        Entity entity = getEntity(row, column);
+        if (entity == null) {
+            return false;
+        }
+        return entity.canBeAttacked();
+    }
+
+    /**
+     * See if we can attack entity at a local location
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @param d      The direction adjust look up towards
+     * @return True if we can attack robot at that location
+     */
+    public boolean canBeAttacked(int row, int column, Direction d) {
+        return canBeAttacked(row + d.getRowChange(), column + d.getColumnChange());
+    }
+
+    /**
+     * See if entity is maximal at this local location
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @return True if entity is a maximal at that location
+     */
+    public boolean isMaximal(int row, int column) {
+        return getEntity(row, column) instanceof Maximal;
+    }
+
+    /**
+     * See if entity is predacon at this local location
+     *
+     * @param row    The local row to check
+     * @param column The local column to check
+     * @return True if entity is a predacon at that location
+     */
+    public boolean isPredaCon(int row, int column) {
+        return getEntity(row, column) instanceof PredaCon;
+    }
+
+    /**
+     * The rows of the view
+     *
+     * @return The rows of the view
+     */
+    public int getRows() {
+        return size;
+    }
+
+    /**
+     * The columns of the view
+     *
+     * @return The columns of the view
+     */
+    public int getColumns() {
+        return size;
+    }
+
+    /**
+     * The random number generator for robots that choose randomly (usually that of the battle being viewed)
+     *
+     * @return The random number generator to use
+     */
+    public RandomSource getRandom() {
+        return random != null ? random : battle.getRandom();
+    }
+}
@@ -2,11 +2,6 @@ package rw.battle;
 
 import rw.enums.Direction;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collections;
-import java.util.List;
-
 /**
  * A Maximal is a Robot with a user provided WEAPON STRENGTH and ARMOR STRENGTH
  *
@@ -15,6 +10,11 @@ import java.util.List;
  */
 public final class Maximal extends Robot {
 
+    /**
+     * Maximals check for attacks in the reverse of the Direction order (built once rather than every turn)
+     */
+    private static final Direction[] ATTACK_ORDER = reverseDirections();
+
     /**
      * The user provided weapon strength
      */
@@ -66,12 +66,12 @@ public final class Maximal extends Robot {
     }
 
     @Override
-    public Direction chooseMove(Battle local) {
+    public Direction chooseMove(LocalView local) {
         Direction dir = Direction.EAST;
         if (local.canMoveOnTopOf(2, 2, dir)) {
             return dir;
         }
-        dir = Direction.getRandomDirection();
+        dir = Direction.getRandomDirection(local.getRandom());
         if (local.canMoveOnTopOf(2, 2, dir)) {
             return dir;
         }
@@ -80,10 +80,8 @@ public final class Maximal extends Robot {
 
 
     @Override
-    public Direction attackWhere(Battle local) {
-        List<Direction> directions = Arrays.asList(Direction.values());
-        Collections.reverse(directions);
-        for(Direction dir: directions){
+    public Direction attackWhere(LocalView local) {
+        for(Direction dir: ATTACK_ORDER){
             if(dir == Direction.STAY){
                 continue;
             }
@@ -93,4 +91,18 @@ public final class Maximal extends Robot {
         }
         return null;
     }
+
+    /**
+     * Build the reversed Direction order Maximals attack in
+     *
+     * @return Directions from last to first
+     */
+    private static Direction[] reverseDirections() {
+        Direction[] directions = Direction.values();
+        Direction[] reversed = new Direction[directions.length];
+        for (int i = 0; i < directions.length; i++) {
+            reversed[i] = directions[directions.length - 1 - i];
+        }
+        return reversed;
+    }
 }
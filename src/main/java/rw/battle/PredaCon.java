@@ -16,6 +16,11 @@ public final class PredaCon extends Robot {
      */
     private static final int PREDACON_ARMOR_STRENGTH = 2;
 
+    /**
+     * PredaCons check for attacks in Direction order (values() makes a new array every call, so keep one)
+     */
+    private static final Direction[] ATTACK_ORDER = Direction.values();
+
     /**
      * The user provided weapon type
      */
@@ -70,12 +75,12 @@ public final class PredaCon extends Robot {
     }
 
     @Override
-    public Direction chooseMove(Battle local) {
+    public Direction chooseMove(LocalView local) {
         Direction dir = Direction.WEST;
         if (local.canMoveOnTopOf(2, 2, dir)) {
             return dir;
         }
-        dir = Direction.getRandomDirection();
+        dir = Direction.getRandomDirection(local.getRandom());
         if (local.canMoveOnTopOf(2, 2, dir)) {
             return dir;
         }
@@ -83,8 +88,8 @@ public final class PredaCon extends Robot {
     }
 
     @Override
-    public Direction attackWhere(Battle local) {
-        for(Direction dir: Direction.values()){
+    public Direction attackWhere(LocalView local) {
+        for(Direction dir: ATTACK_ORDER){
             if(dir == Direction.STAY){
                 continue;
             }
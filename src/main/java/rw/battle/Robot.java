@@ -2,27 +2,30 @@ package rw.battle;
 
 import rw.enums.Direction;
 
+/**
+ * A Robot is a handle onto its row in the RobotRegistry of the Battle it was added to
+ * (a robot not yet added to a battle is the only robot in its own registry)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
 public abstract class Robot extends Entity {
-    /**
-     * Allows us to generate unique IDs for each robot crated.
-     */
-    private static int counter = 1;
     /**
      * Robots all have a name that is more detailed than the map symbol
      */
     private final String name;
     /**
-     * ID to help tell each robot apart so shared symbols don't become confusing
+     * The registry that stores the health and state of this robot
      */
-    private final int id;
+    private RobotRegistry registry;
     /**
-     * Robots have a state
+     * Index of this robot in its registry, the ID (index + 1) helps tell each robot apart so shared symbols don't become confusing
      */
-    private State state;
+    private int index;
     /**
-     * Robots have health and at <=0 they will go from ALIVE to DEAD
+     * The "CLASS(ID)" form of this robot once built (null until shortString() is first called after being added)
      */
-    private int health;
+    private String shortString;
 
     /**
      * Create robot with given symbol and health (since class is abstract, only children can be made)
@@ -37,19 +40,39 @@ public abstract class Robot extends Entity {
         if (health < 0) {
             throw new IllegalArgumentException("Health for robot must be >= 0. Value given was " + health + "!");
         }
-        this.health = health;
-        this.state = State.ALIVE;
-        //If health was too low (<=0) then update this robot to dead
-        checkDead();
-        this.id = counter;
-        counter++;
+        //If health was too low (<=0) then this robot starts dead
+        this.registry = RobotRegistry.detached(this, health);
+        this.index = 0;
+    }
+
+    /**
+     * Move this robot onto a row of a battle registry
+     *
+     * @param registry The registry now storing this robot
+     * @param index    The index of this robot in the registry
+     */
+    final void bind(RobotRegistry registry, int index) {
+        this.registry = registry;
+        this.index = index;
+        this.shortString = null;
+    }
+
+    /**
+     * The registry storing this robot
+     *
+     * @return The registry of this robot
+     */
+    final RobotRegistry getRegistry() {
+        return registry;
     }
 
     /**
-     * Reset the ID counter (for testing purposes only)
+     * Get the ID of robot, unique within the battle it was added to (IDs are given in the order robots are added starting at 1)
+     *
+     * @return The ID of the robot
      */
-    public static void resetIDCounter() {
-        counter = 1;
+    public final int getId() {
+        return index + 1;
     }
 
     /**
@@ -58,7 +81,7 @@ public abstract class Robot extends Entity {
      * @return The health of robot, should be >= 0 (<=0 is DEAD)
      */
     public final int getHealth() {
-        return health;
+        return registry.health[index];
     }
 
     /**
@@ -67,7 +90,7 @@ public abstract class Robot extends Entity {
      * @return True if state is alive (health should be > 0)
      */
     public final boolean isAlive() {
-        return state == State.ALIVE;
+        return registry.alive[index];
     }
 
     /**
@@ -89,16 +112,8 @@ public abstract class Robot extends Entity {
         if (damage < 0) {
             throw new IllegalArgumentException("Damage must be reported as positive (or zero) value (which is subtracted from current health)!");
         }
-        this.health = Math.max(0, this.health - damage);
-        checkDead();
-    }
-
-    /**
-     * Internal function to check if robot has moved from alive to dead
-     */
-    private void checkDead() {
-        if (this.health <= 0) {
-            this.state = State.DEAD;
+        if (registry.damage(index, damage)) {
+            registry.died(index);
         }
     }
 
@@ -122,7 +137,7 @@ public abstract class Robot extends Entity {
      * @param local The local view of the robot
      * @return The Direction the robot wants to move (presumption that robot already decided to not attack)
      */
-    public abstract Direction chooseMove(Battle local);
+    public abstract Direction chooseMove(LocalView local);
 
     /**
      * Where does this robot want to attack based on local view of battle (immediate neighbors 3x3)
@@ -130,7 +145,7 @@ public abstract class Robot extends Entity {
      * @param local The local view of the robot (immediate neighbors 3x3)
      * @return The Direction the robot wants to attack (null if not attacking)
      */
-    public abstract Direction attackWhere(Battle local);
+    public abstract Direction attackWhere(LocalView local);
 
     /**
      * Can only be moved on top of if dead
@@ -158,7 +173,11 @@ public abstract class Robot extends Entity {
      * @return "CLASS(ID)" form of robot
      */
     public final String shortString() {
-        return getClass().getSimpleName().substring(0, 4) + "(" + id + ")";
+        //Built once, the ID only changes when added to a battle
+        if (shortString == null) {
+            shortString = getClass().getSimpleName().substring(0, 4) + "(" + getId() + ")";
+        }
+        return shortString;
     }
 
     /**
@@ -168,7 +187,7 @@ public abstract class Robot extends Entity {
      */
     @Override
     public String toString() {
-        return shortString() + "\t" + getSymbol() + "\t" + name + "\t" + health + "\t" + state;
+        return shortString() + "\t" + getSymbol() + "\t" + name + "\t" + getHealth() + "\t" + (isAlive() ? State.ALIVE : State.DEAD);
     }
 
     public String getName() {
@@ -0,0 +1,347 @@
+package rw.battle;
+
+import java.util.Arrays;
+
+/**
+ * Dense storage of every robot in a Battle, robots are given an index in the order they are added
+ * Attributes are kept in primitive columns (one array per attribute, indexed by robot index) so that the battle can scan them directly
+ * A Robot object is a handle onto its row of the registry
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+final class RobotRegistry {
+
+    /**
+     * Faction column value for a Maximal
+     */
+    static final byte MAXIMAL = 0;
+    /**
+     * Faction column value for a PredaCon
+     */
+    static final byte PREDACON = 1;
+    /**
+     * Location column value for a robot that is no longer on the map (it was moved on top of or replaced)
+     */
+    static final int OFF_MAP = -1;
+    /**
+     * Is this the private registry of a single robot that has not been added to a battle
+     */
+    private final boolean detached;
+    /**
+     * The robots by index
+     */
+    private Robot[] robots;
+    /**
+     * The number of robots registered
+     */
+    private int size;
+    /**
+     * The number of robots ALIVE and on the map for each faction (indexed by MAXIMAL, PREDACON)
+     * Only changed on one thread, deaths during a TiledEngine tick are counted once its tiles have committed
+     */
+    private final int[] aliveCounts = new int[2];
+    /**
+     * The first robot in turn order that is still in the alive counts (-1 if none)
+     */
+    private int firstActive = -1;
+    /**
+     * The last robot in turn order that is still in the alive counts (-1 if none)
+     */
+    private int lastActive = -1;
+    /**
+     * Health of each robot, at <=0 they will go from ALIVE to DEAD
+     */
+    int[] health;
+    /**
+     * Is each robot ALIVE
+     */
+    boolean[] alive;
+    /**
+     * Is each robot included in the alive counts (ALIVE and on the map, and its death not yet counted)
+     * The counted robots are also linked together in turn order (by nextActive/previousActive)
+     */
+    boolean[] counted;
+    /**
+     * The next counted robot in turn order (-1 if none)
+     * A robot taken out of the turn order keeps its next, so a loop that is on it when it is taken out can carry on
+     */
+    private int[] nextActive;
+    /**
+     * The previous counted robot in turn order (-1 if none)
+     */
+    private int[] previousActive;
+    /**
+     * Has each robot changed (been added or damaged) since the battle was last rendered (see BattleRenderer)
+     */
+    boolean[] changed;
+    /**
+     * Weapon strength of each robot
+     */
+    int[] weapon;
+    /**
+     * Armor strength of each robot
+     */
+    int[] armor;
+    /**
+     * MAXIMAL or PREDACON for each robot
+     */
+    byte[] faction;
+    /**
+     * Row of each robot in the battle (OFF_MAP once no longer on the map)
+     */
+    int[] rows;
+    /**
+     * Column of each robot in the battle (OFF_MAP once no longer on the map)
+     */
+    int[] columns;
+
+    /**
+     * A new empty registry for a battle
+     */
+    RobotRegistry() {
+        this(false, 16);
+    }
+
+    /**
+     * A new empty registry
+     *
+     * @param detached Is this the private registry of a single robot
+     * @param capacity The starting number of robots that fit before columns grow
+     */
+    private RobotRegistry(boolean detached, int capacity) {
+        this.detached = detached;
+        this.robots = new Robot[capacity];
+        this.health = new int[capacity];
+        this.alive = new boolean[capacity];
+        this.counted = new boolean[capacity];
+        this.changed = new boolean[capacity];
+        this.nextActive = new int[capacity];
+        this.previousActive = new int[capacity];
+        this.weapon = new int[capacity];
+        this.armor = new int[capacity];
+        this.faction = new byte[capacity];
+        this.rows = new int[capacity];
+        this.columns = new int[capacity];
+    }
+
+    /**
+     * The private registry a robot is created in until it is added to a battle
+     *
+     * @param robot  The new robot
+     * @param health The starting health of the robot
+     * @return A registry holding only the given robot at index 0
+     */
+    static RobotRegistry detached(Robot robot, int health) {
+        RobotRegistry registry = new RobotRegistry(true, 1);
+        registry.robots[0] = robot;
+        registry.health[0] = health;
+        registry.alive[0] = health > 0;
+        registry.rows[0] = OFF_MAP;
+        registry.columns[0] = OFF_MAP;
+        registry.size = 1;
+        return registry;
+    }
+
+    /**
+     * Add a robot to the registry (moving its health and state out of its previous registry)
+     *
+     * @param robot  The robot to add
+     * @param row    The row of the robot in the battle
+     * @param column The column of the robot in the battle
+     * @return The index given to the robot
+     */
+    int add(Robot robot, int row, int column) {
+        if (!robot.getRegistry().detached) {
+            throw new IllegalArgumentException("Robot " + robot.getName() + " has already been added to a battle!");
+        }
+        if (size == robots.length) {
+            grow(size * 2);
+        }
+        int index = size;
+        robots[index] = robot;
+        health[index] = robot.getHealth();
+        alive[index] = robot.isAlive();
+        weapon[index] = robot.weaponStrength();
+        armor[index] = robot.armorStrength();
+        faction[index] = robot instanceof Maximal ? MAXIMAL : PREDACON;
+        rows[index] = row;
+        columns[index] = column;
+        changed[index] = true;
+        size++;
+        counted[index] = alive[index];
+        if (counted[index]) {
+            count(index);
+        }
+        robot.bind(this, index);
+        return index;
+    }
+
+    /**
+     * Damage the health of a robot for the given positive (or 0) amount
+     * We will update ALIVE if health falls to <= 0, the alive counts are only updated once died(index) is called
+     * (so damage can be done on several threads and deaths counted afterwards on one, even if the robot is covered first)
+     *
+     * @param index  The index of the robot
+     * @param damage The damage to subtract from the robot
+     * @return True if this damage killed the robot
+     */
+    boolean damage(int index, int damage) {
+        health[index] = Math.max(0, health[index] - damage);
+        changed[index] = true;
+        if (health[index] <= 0 && alive[index]) {
+            alive[index] = false;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Count a robot that was killed by damage(index, damage) as no longer alive
+     *
+     * @param index The index of the robot
+     */
+    void died(int index) {
+        uncount(index);
+    }
+
+    /**
+     * Record that a robot is no longer on the map (it was moved on top of or replaced)
+     * A robot killed by damage(index, damage) whose death has not been counted yet stays in the alive counts and the turn
+     * order until died(index) is called. Only dead robots can be moved on top of, so a TiledEngine tile covering one never
+     * touches the counts or the turn order shared with other tiles (the death is counted when the tile's events are logged)
+     *
+     * @param index The index of the robot
+     */
+    void removed(int index) {
+        if (alive[index]) {
+            uncount(index);
+        }
+        rows[index] = OFF_MAP;
+        columns[index] = OFF_MAP;
+    }
+
+    /**
+     * Add a robot to the alive counts and the end of the turn order
+     *
+     * @param index The index of the robot
+     */
+    private void count(int index) {
+        aliveCounts[faction[index]]++;
+        nextActive[index] = -1;
+        previousActive[index] = lastActive;
+        if (lastActive == -1) {
+            firstActive = index;
+        } else {
+            nextActive[lastActive] = index;
+        }
+        lastActive = index;
+    }
+
+    /**
+     * Rebuild the alive counts and the turn order from the counted column (after the columns were restored)
+     */
+    void recount() {
+        Arrays.fill(aliveCounts, 0);
+        firstActive = -1;
+        lastActive = -1;
+        for (int index = 0; index < size; index++) {
+            if (counted[index]) {
+                count(index);
+            }
+        }
+    }
+
+    /**
+     * Take a robot out of the alive counts and the turn order (if it is still in them)
+     *
+     * @param index The index of the robot
+     */
+    private void uncount(int index) {
+        if (counted[index]) {
+            counted[index] = false;
+            aliveCounts[faction[index]]--;
+            int next = nextActive[index];
+            int previous = previousActive[index];
+            if (previous == -1) {
+                firstActive = next;
+            } else {
+                nextActive[previous] = next;
+            }
+            if (next == -1) {
+                lastActive = previous;
+            } else {
+                previousActive[next] = previous;
+            }
+        }
+    }
+
+    /**
+     * The first robot in turn order that is ALIVE and on the map (robots whose death has not been counted yet are included)
+     *
+     * @return The index of the robot, -1 if there are none
+     */
+    int firstActive() {
+        return firstActive;
+    }
+
+    /**
+     * The robot after the given one in turn order that is ALIVE and on the map
+     * (also works for a robot that was taken out of the turn order since it was reached)
+     *
+     * @param index The index of a robot
+     * @return The index of the next robot, -1 if there are none
+     */
+    int nextActive(int index) {
+        return nextActive[index];
+    }
+
+    /**
+     * The number of robots of a faction that are ALIVE and on the map
+     *
+     * @param faction MAXIMAL or PREDACON
+     * @return The number of robots
+     */
+    int aliveCount(byte faction) {
+        return aliveCounts[faction];
+    }
+
+    /**
+     * Get a robot by index
+     *
+     * @param index The index of the robot
+     * @return The robot
+     */
+    Robot get(int index) {
+        return robots[index];
+    }
+
+    /**
+     * The number of robots registered (alive or dead)
+     *
+     * @return The number of robots
+     */
+    int size() {
+        return size;
+    }
+
+    /**
+     * Grow every column to the given capacity
+     *
+     * @param capacity The new capacity
+     */
+    private void grow(int capacity) {
+        robots = Arrays.copyOf(robots, capacity);
+        health = Arrays.copyOf(health, capacity);
+        alive = Arrays.copyOf(alive, capacity);
+        counted = Arrays.copyOf(counted, capacity);
+        changed = Arrays.copyOf(changed, capacity);
+        nextActive = Arrays.copyOf(nextActive, capacity);
+        previousActive = Arrays.copyOf(previousActive, capacity);
+        weapon = Arrays.copyOf(weapon, capacity);
+        armor = Arrays.copyOf(armor, capacity);
+        faction = Arrays.copyOf(faction, capacity);
+        rows = Arrays.copyOf(rows, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+    }
+}
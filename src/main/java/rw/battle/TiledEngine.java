@@ -0,0 +1,357 @@
+package rw.battle;
+
+import rw.enums.Direction;
+import rw.jfr.AttackEvent;
+import rw.jfr.DecisionEvent;
+import rw.util.SplitMixRandom;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Advances a Battle by splitting the grid into square tiles that are worked on in parallel on a fork-join pool
+ * <p>
+ * A tick has three phases:
+ * <ol>
+ * <li>Decide (parallel): every robot ALIVE at the start of the tick chooses where to attack or move, looking at the
+ * battle as it was at the start of the tick. Random choices (random moves and damage rolls) come from a SplitMix64
+ * stream keyed by the battle's random state, the tick and the robot, so they do not depend on which thread decides.</li>
+ * <li>Commit tiles (parallel): inside each tile, in turn order, every robot still ALIVE whose action stays inside
+ * its own tile acts. A move stays inside when the cell moved to is in the tile, an attack when the attacked robot
+ * started the tick in the tile. Tiles never touch each other's cells or robots in this phase.</li>
+ * <li>Commit borders (one thread): every robot still ALIVE whose action crosses into another tile acts, in turn
+ * order. So at a tile border an action inside a tile always goes before an action crossing into it.</li>
+ * </ol>
+ * When acting, an attack is on the robot chosen (wherever it has moved to) and does nothing if it is already DEAD,
+ * a move only happens if the cell can still be moved on top of. The outcome of a tick depends only on the battle,
+ * its random state and the tile size, never on the number of threads. Actions are logged in tile order, then border
+ * actions in turn order.
+ * <p>
+ * An engine advances one battle at a time.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class TiledEngine {
+
+    /**
+     * Tiles are this many cells square unless given
+     */
+    public static final int DEFAULT_TILE_SIZE = 64;
+    /**
+     * Tiles given to one fork-join task before it stops splitting
+     */
+    private static final int TILES_PER_TASK = 8;
+    /**
+     * Robot is not acting this tick
+     */
+    private static final byte NONE = 0;
+    /**
+     * Robot is attacking this tick
+     */
+    private static final byte ATTACK = 1;
+    /**
+     * Robot is moving this tick
+     */
+    private static final byte MOVE = 2;
+    /**
+     * Cached copy of Direction.values()
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The pool tiles are worked on in
+     */
+    private final ForkJoinPool pool;
+    /**
+     * The width and height of a tile in cells
+     */
+    private final int tileSize;
+
+    /**
+     * The battle being advanced
+     */
+    private Battle battle;
+    /**
+     * The robots of the battle being advanced
+     */
+    private RobotRegistry robots;
+    /**
+     * Seed of the random streams of this tick
+     */
+    private long seed;
+    /**
+     * The tick being advanced
+     */
+    private int tick;
+    /**
+     * The number of tiles in a row of tiles
+     */
+    private int tilesAcross;
+    /**
+     * The number of tiles
+     */
+    private int tileCount;
+    /**
+     * Where each tile's robots start in order (tileCount + 1 entries)
+     */
+    private int[] tileStart = new int[0];
+    /**
+     * The robots acting this tick, grouped by tile and in turn order within each tile
+     */
+    private int[] order = new int[0];
+    /**
+     * The tile each robot started the tick in (by robot index)
+     */
+    private int[] tileOf = new int[0];
+    /**
+     * NONE, ATTACK or MOVE for each robot
+     */
+    private byte[] action = new byte[0];
+    /**
+     * The direction ordinal of each robot's action
+     */
+    private byte[] direction = new byte[0];
+    /**
+     * The robot each attacking robot attacks
+     */
+    private int[] target = new int[0];
+    /**
+     * The damage rolled by each attacking robot
+     */
+    private int[] damage = new int[0];
+    /**
+     * Whether each acting robot's action crosses into another tile
+     */
+    private boolean[] border = new boolean[0];
+    /**
+     * Events of each tile, logged in tile order after the tiles have committed
+     */
+    private EventBuffer[] tileEvents = new EventBuffer[0];
+    /**
+     * Events of border actions
+     */
+    private final EventBuffer borderEvents = new EventBuffer();
+
+    /**
+     * An engine with its own pool of the given number of threads and default tile size
+     *
+     * @param threads The number of threads
+     */
+    public TiledEngine(int threads) {
+        this(new ForkJoinPool(threads), DEFAULT_TILE_SIZE);
+    }
+
+    /**
+     * An engine working in the given pool
+     *
+     * @param pool     The pool to work in
+     * @param tileSize The width and height of a tile in cells
+     */
+    public TiledEngine(ForkJoinPool pool, int tileSize) {
+        if (tileSize < 1) {
+            throw new IllegalArgumentException("Tile size must be positive!");
+        }
+        this.pool = pool;
+        this.tileSize = tileSize;
+    }
+
+    /**
+     * Advance the battle one step (called by Battle.advanceSimulation())
+     *
+     * @param battle The battle to advance
+     */
+    void advance(Battle battle) {
+        this.battle = battle;
+        this.robots = battle.getRegistry();
+        this.seed = battle.getRandom().getState();
+        this.tick = battle.getTick();
+        groupByTile();
+        pool.invoke(new TileTask(true, 0, tileCount));
+        pool.invoke(new TileTask(false, 0, tileCount));
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileEvents[tile].publish(battle);
+        }
+        for (int index = robots.firstActive(); index != -1; index = robots.nextActive(index)) {
+            if (action[index] != NONE && border[index] && robots.alive[index]) {
+                act(index, borderEvents);
+            }
+        }
+        borderEvents.publish(battle);
+        this.battle = null;
+        this.robots = null;
+    }
+
+    /**
+     * Size the working arrays for the battle and group the robots that are ALIVE and on the map by tile (a counting sort
+     * over the turn order, so turn order is kept within each tile)
+     */
+    private void groupByTile() {
+        int robotCount = robots.size();
+        tilesAcross = (battle.getColumns() + tileSize - 1) / tileSize;
+        tileCount = tilesAcross * ((battle.getRows() + tileSize - 1) / tileSize);
+        if (tileStart.length != tileCount + 1) {
+            tileStart = new int[tileCount + 1];
+            tileEvents = new EventBuffer[tileCount];
+            for (int tile = 0; tile < tileCount; tile++) {
+                tileEvents[tile] = new EventBuffer();
+            }
+        } else {
+            Arrays.fill(tileStart, 0);
+        }
+        if (tileOf.length < robotCount) {
+            order = new int[robotCount];
+            tileOf = new int[robotCount];
+            action = new byte[robotCount];
+            direction = new byte[robotCount];
+            target = new int[robotCount];
+            damage = new int[robotCount];
+            border = new boolean[robotCount];
+        }
+        for (int index = robots.firstActive(); index != -1; index = robots.nextActive(index)) {
+            action[index] = NONE;
+            int tile = tileOf(robots.rows[index], robots.columns[index]);
+            tileOf[index] = tile;
+            tileStart[tile + 1]++;
+        }
+        for (int tile = 0; tile < tileCount; tile++) {
+            tileStart[tile + 1] += tileStart[tile];
+        }
+        int[] next = Arrays.copyOf(tileStart, tileCount);
+        for (int index = robots.firstActive(); index != -1; index = robots.nextActive(index)) {
+            order[next[tileOf[index]]++] = index;
+        }
+    }
+
+    /**
+     * The tile a cell is in
+     *
+     * @param row    The row of the cell
+     * @param column The column of the cell
+     * @return The tile number (row major)
+     */
+    private int tileOf(int row, int column) {
+        return (row / tileSize) * tilesAcross + column / tileSize;
+    }
+
+    /**
+     * Decide the action of one robot from the battle as it is at the start of the tick
+     *
+     * @param index      The index of the robot
+     * @param attackView A view for attacking (using random)
+     * @param moveView   A view for moving (using random)
+     * @param random     The random generator of the views, reset for this robot
+     */
+    private void decide(int index, LocalView attackView, LocalView moveView, SplitMixRandom random) {
+        random.reset(seed, ((long) tick << 32) | index);
+        Robot robot = robots.get(index);
+        int row = robots.rows[index];
+        int column = robots.columns[index];
+        DecisionEvent decision = DecisionEvent.start();
+        Direction attackWhere = robot.attackWhere(attackView.centre(row, column));
+        if (attackWhere == null) {
+            Direction moveWhere = robot.chooseMove(moveView.centre(row, column));
+            battle.decided(decision, index, row, column, false);
+            action[index] = MOVE;
+            direction[index] = (byte) moveWhere.ordinal();
+            int moveRow = row + moveWhere.getRowChange();
+            int moveColumn = column + moveWhere.getColumnChange();
+            border[index] = battle.valid(moveRow, moveColumn) && tileOf(moveRow, moveColumn) != tileOf[index];
+        } else {
+            battle.decided(decision, index, row, column, true);
+            int attacked = battle.robotIndexAt(row + attackWhere.getRowChange(), column + attackWhere.getColumnChange());
+            if (attacked < 0) {
+                //Robots only attack robots, nothing to do
+                return;
+            }
+            action[index] = ATTACK;
+            direction[index] = (byte) attackWhere.ordinal();
+            target[index] = attacked;
+            damage[index] = 1 + random.nextInt(robots.weapon[index]);
+            border[index] = tileOf[attacked] != tileOf[index];
+        }
+    }
+
+    /**
+     * Carry out the decided action of one robot
+     *
+     * @param index  The index of the robot
+     * @param events Where to record what happened
+     */
+    private void act(int index, EventBuffer events) {
+        Direction d = DIRECTIONS[direction[index]];
+        if (action[index] == MOVE) {
+            events.move(index, d, battle.commitMove(index, d));
+        } else {
+            AttackEvent attack = AttackEvent.start();
+            int attacked = target[index];
+            int trueDamage = battle.commitAttack(attacked, damage[index]);
+            boolean killed = trueDamage >= 0 && !robots.alive[attacked];
+            events.attack(index, attacked, d, damage[index], trueDamage, killed);
+            battle.attacked(attack, index, attacked, damage[index], trueDamage, killed);
+        }
+    }
+
+    /**
+     * Decide (or commit) a range of tiles, splitting the range in half until it is small
+     */
+    private final class TileTask extends RecursiveAction {
+
+        /**
+         * Tasks are never serialized, but RecursiveAction is Serializable
+         */
+        private static final long serialVersionUID = 1L;
+        /**
+         * True to decide, false to commit
+         */
+        private final boolean deciding;
+        /**
+         * First tile of the range
+         */
+        private final int from;
+        /**
+         * One past the last tile of the range
+         */
+        private final int to;
+
+        /**
+         * A task for a range of tiles
+         *
+         * @param deciding True to decide, false to commit
+         * @param from     First tile of the range
+         * @param to       One past the last tile of the range
+         */
+        TileTask(boolean deciding, int from, int to) {
+            this.deciding = deciding;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > TILES_PER_TASK) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new TileTask(deciding, from, middle), new TileTask(deciding, middle, to));
+            } else if (deciding) {
+                SplitMixRandom random = new SplitMixRandom(0);
+                LocalView attackView = new LocalView(battle, Battle.ATTACK_BATTLE_SIZE);
+                LocalView moveView = new LocalView(battle, Battle.MOVE_BATTLE_SIZE);
+                attackView.setRandom(random);
+                moveView.setRandom(random);
+                for (int i = tileStart[from]; i < tileStart[to]; i++) {
+                    decide(order[i], attackView, moveView, random);
+                }
+            } else {
+                for (int tile = from; tile < to; tile++) {
+                    for (int i = tileStart[tile]; i < tileStart[tile + 1]; i++) {
+                        int index = order[i];
+                        if (action[index] != NONE && !border[index] && robots.alive[index]) {
+                            act(index, tileEvents[tile]);
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
@@ -1,6 +1,6 @@
 package rw.enums;
 
-import rw.shell.Main;
+import rw.util.RandomSource;
 
 /**
  * Enumeration of directions in 2D grid
@@ -13,6 +13,10 @@ public enum Direction {
     NORTHWEST(-1, -1), NORTH(-1, 0), NORTHEAST(-1, 1),
     WEST(0, -1), STAY(0, 0), EAST(0, 1),
     SOUTHWEST(1, -1), SOUTH(1, 0), SOUTHEAST(1, 1);
+    /**
+     * Cached copy of values() (values() makes a new array every call)
+     */
+    private static final Direction[] VALUES = values();
     /**
      * Row adjustment to move that direction
      */
@@ -36,10 +40,11 @@ public enum Direction {
     /**
      * Get a random direction from the set of 9 available options
      *
+     * @param random The random number generator to choose with
      * @return A random Direction from the available 9 directions
      */
-    public static Direction getRandomDirection() {
-        return Direction.values()[Main.random.nextInt(Direction.values().length)];
+    public static Direction getRandomDirection(RandomSource random) {
+        return VALUES[random.nextInt(VALUES.length)];
     }
 
     /**
@@ -0,0 +1,75 @@
+package rw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for every attack on a robot being resolved (damage after armor, and the death it may cause)
+ * Can be one event per robot per tick, so it is off unless enabled in the recording settings
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@Name("rw.Attack")
+@Label("Attack")
+@Category({"Robot Wars", "Robot"})
+@Description("An attack on a robot being resolved")
+@StackTrace(false)
+@Enabled(false)
+public final class AttackEvent extends Event {
+
+    /**
+     * Never committed, only asked if the event is enabled (so nothing is allocated when it is not)
+     */
+    private static final AttackEvent PROBE = new AttackEvent();
+
+    /**
+     * The tick of the attack
+     */
+    @Label("Tick")
+    public int tick;
+    /**
+     * The turn order index of the attacking robot
+     */
+    @Label("Robot")
+    public int robot;
+    /**
+     * The turn order index of the attacked robot
+     */
+    @Label("Target")
+    public int target;
+    /**
+     * The damage rolled
+     */
+    @Label("Damage")
+    public int damage;
+    /**
+     * The damage done after armor, -1 if the target was already DEAD
+     */
+    @Label("True Damage")
+    public int trueDamage;
+    /**
+     * Did the attack kill the target
+     */
+    @Label("Killed")
+    public boolean killed;
+
+    /**
+     * Begin timing an attack, if the event is being recorded
+     *
+     * @return The begun event, null if it is not being recorded
+     */
+    public static AttackEvent start() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        AttackEvent event = new AttackEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,70 @@
+package rw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Enabled;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for every robot deciding where to attack or move (looking at its local views)
+ * One event per robot per tick, so it is off unless enabled in the recording settings
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@Name("rw.Decision")
+@Label("Robot Decision")
+@Category({"Robot Wars", "Robot"})
+@Description("A robot looking at its local views and choosing where to attack or move")
+@StackTrace(false)
+@Enabled(false)
+public final class DecisionEvent extends Event {
+
+    /**
+     * Never committed, only asked if the event is enabled (so nothing is allocated when it is not)
+     */
+    private static final DecisionEvent PROBE = new DecisionEvent();
+
+    /**
+     * The tick of the decision
+     */
+    @Label("Tick")
+    public int tick;
+    /**
+     * The turn order index of the robot (as given to BattleObserver)
+     */
+    @Label("Robot")
+    public int robot;
+    /**
+     * The row of the robot
+     */
+    @Label("Row")
+    public int row;
+    /**
+     * The column of the robot
+     */
+    @Label("Column")
+    public int column;
+    /**
+     * Did the robot decide to attack (otherwise it moves)
+     */
+    @Label("Attack")
+    public boolean attack;
+
+    /**
+     * Begin timing a decision, if the event is being recorded
+     *
+     * @return The begun event, null if it is not being recorded
+     */
+    public static DecisionEvent start() {
+        if (!PROBE.isEnabled()) {
+            return null;
+        }
+        DecisionEvent event = new DecisionEvent();
+        event.begin();
+        return event;
+    }
+}
@@ -0,0 +1,53 @@
+package rw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded for every battle file loaded (Reader.loadBattle)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@Name("rw.LoadBattle")
+@Label("Load Battle")
+@Category({"Robot Wars", "File"})
+@Description("A battle loaded from a file")
+public final class LoadBattleEvent extends Event {
+
+    /**
+     * The path of the file
+     */
+    @Label("File")
+    public String file;
+    /**
+     * The size of the file
+     */
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+    /**
+     * The most threads the file could be parsed on
+     */
+    @Label("Threads")
+    public int threads;
+    /**
+     * The rows of the battle
+     */
+    @Label("Rows")
+    public int rows;
+    /**
+     * The columns of the battle
+     */
+    @Label("Columns")
+    public int columns;
+    /**
+     * The robots in the battle
+     */
+    @Label("Robots")
+    public int robots;
+}
@@ -0,0 +1,58 @@
+package rw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for every battle rendered as text (Battle.battleString and Battle.gameString)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@Name("rw.Render")
+@Label("Render")
+@Category("Robot Wars")
+@Description("A battle rendered as text, only what changed since it was last rendered is drawn again")
+@StackTrace(false)
+public final class RenderEvent extends Event {
+
+    /**
+     * The tick of the battle
+     */
+    @Label("Tick")
+    public int tick;
+    /**
+     * Was the game rendered (the map and the table of robots, otherwise only the map)
+     */
+    @Label("Game")
+    public boolean game;
+    /**
+     * The rows of the battle
+     */
+    @Label("Rows")
+    public int rows;
+    /**
+     * The columns of the battle
+     */
+    @Label("Columns")
+    public int columns;
+    /**
+     * The rows of the map drawn again
+     */
+    @Label("Rows Drawn")
+    public int rowsDrawn;
+    /**
+     * The lines of the table of robots built again (0 when only the map is rendered)
+     */
+    @Label("Robot Lines Built")
+    public int robotLinesBuilt;
+    /**
+     * The length of the text
+     */
+    @Label("Length")
+    public int length;
+}
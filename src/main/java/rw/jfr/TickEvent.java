@@ -0,0 +1,53 @@
+package rw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+/**
+ * Recorded for every simulation step (Battle.advanceSimulation), from the first robot's turn to the last
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@Name("rw.Tick")
+@Label("Tick")
+@Category("Robot Wars")
+@Description("A simulation step of a battle")
+@StackTrace(false)
+public final class TickEvent extends Event {
+
+    /**
+     * The number of steps completed before this one
+     */
+    @Label("Tick")
+    public int tick;
+    /**
+     * The rows of the battle
+     */
+    @Label("Rows")
+    public int rows;
+    /**
+     * The columns of the battle
+     */
+    @Label("Columns")
+    public int columns;
+    /**
+     * The Maximals ALIVE after the step
+     */
+    @Label("Maximals Alive")
+    public int maximalsAlive;
+    /**
+     * The PredaCons ALIVE after the step
+     */
+    @Label("PredaCons Alive")
+    public int predaConsAlive;
+    /**
+     * Was the step advanced by the parallel engine (TiledEngine)
+     */
+    @Label("Parallel")
+    public boolean parallel;
+}
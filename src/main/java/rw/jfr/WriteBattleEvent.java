@@ -0,0 +1,53 @@
+package rw.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Recorded for every battle written to a file (Writer.writeBattleToFile)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+@Name("rw.WriteBattle")
+@Label("Write Battle")
+@Category({"Robot Wars", "File"})
+@Description("A battle written to a file")
+public final class WriteBattleEvent extends Event {
+
+    /**
+     * The path of the file
+     */
+    @Label("File")
+    public String file;
+    /**
+     * The size of the file written
+     */
+    @Label("Size")
+    @DataAmount
+    public long bytes;
+    /**
+     * Was the SPARSE format written (otherwise a line for every cell)
+     */
+    @Label("Sparse")
+    public boolean sparse;
+    /**
+     * The rows of the battle
+     */
+    @Label("Rows")
+    public int rows;
+    /**
+     * The columns of the battle
+     */
+    @Label("Columns")
+    public int columns;
+    /**
+     * The robots in the battle
+     */
+    @Label("Robots")
+    public int robots;
+}
@@ -0,0 +1,330 @@
+package rw.metrics;
+
+import rw.battle.Battle;
+import rw.battle.BattleObserver;
+import rw.battle.Maximal;
+import rw.enums.Direction;
+
+import javax.management.JMException;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.Locale;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counts what happens in the battles it observes (see observe(battle)): tick latency, moves, blocked moves, attacks,
+ * damage, deaths and robots alive of each faction. The counts can be read as an MBean (see register()) or in the
+ * Prometheus text format (see prometheusText(), served by MetricsServer).
+ * <p>
+ * Counters are LongAdders, so any number of battles (each on its own thread, or on a parallel engine) can be counted
+ * at once without contending, and readers never stop a battle. A battle that is not observed pays nothing.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class BattleMetrics implements BattleMetricsMBean {
+
+    /**
+     * The name the metrics are registered under
+     */
+    public static final String OBJECT_NAME = "rw.battle:type=BattleMetrics";
+    /**
+     * Upper bounds in seconds of the tick latency histogram buckets (a last bucket holds everything longer)
+     */
+    private static final double[] TICK_BUCKETS = {0.0001, 0.00025, 0.0005, 0.001, 0.0025, 0.005, 0.01, 0.025, 0.05, 0.1, 0.25, 0.5, 1, 2.5, 5, 10};
+    /**
+     * Upper bounds of the tick latency histogram buckets in nanoseconds
+     */
+    private static final long[] TICK_BUCKET_NANOS = new long[TICK_BUCKETS.length];
+
+    static {
+        for (int i = 0; i < TICK_BUCKETS.length; i++) {
+            TICK_BUCKET_NANOS[i] = Math.round(TICK_BUCKETS[i] * 1e9);
+        }
+    }
+
+    /**
+     * Ticks in each tick latency bucket (not cumulative, the last is longer than every bound)
+     */
+    private final LongAdder[] tickBuckets = new LongAdder[TICK_BUCKETS.length + 1];
+    /**
+     * Total nanoseconds of every tick
+     */
+    private final LongAdder tickNanos = new LongAdder();
+    /**
+     * Longest tick in nanoseconds
+     */
+    private final LongAccumulator maxTickNanos = new LongAccumulator(Math::max, 0);
+    /**
+     * Moves made
+     */
+    private final LongAdder moves = new LongAdder();
+    /**
+     * Moves somewhere a robot could not move
+     */
+    private final LongAdder blockedMoves = new LongAdder();
+    /**
+     * Attacks made
+     */
+    private final LongAdder attacks = new LongAdder();
+    /**
+     * Damage done after armor
+     */
+    private final LongAdder damageDealt = new LongAdder();
+    /**
+     * Maximals died
+     */
+    private final LongAdder maximalDeaths = new LongAdder();
+    /**
+     * PredaCons died
+     */
+    private final LongAdder predaConDeaths = new LongAdder();
+    /**
+     * Maximals ALIVE in the battles observed
+     */
+    private final LongAdder maximalsAlive = new LongAdder();
+    /**
+     * PredaCons ALIVE in the battles observed
+     */
+    private final LongAdder predaConsAlive = new LongAdder();
+
+    /**
+     * Metrics with every count at 0
+     */
+    public BattleMetrics() {
+        for (int i = 0; i < tickBuckets.length; i++) {
+            tickBuckets[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Start counting what happens in a battle, its robots ALIVE are added to the robots alive now
+     *
+     * @param battle The battle
+     * @return The observer to add to the battle (with Battle.addObserver)
+     */
+    public BattleObserver observe(Battle battle) {
+        maximalsAlive.add(battle.getAliveMaximals());
+        predaConsAlive.add(battle.getAlivePredaCons());
+        return new Counter(battle);
+    }
+
+    /**
+     * Register the metrics with the platform MBean server (as OBJECT_NAME), where JMX clients such as jconsole see them
+     */
+    public void register() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, objectName());
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot register metrics as " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * Unregister the metrics from the platform MBean server
+     */
+    public void unregister() {
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName());
+        } catch (JMException e) {
+            throw new IllegalStateException("Cannot unregister metrics " + OBJECT_NAME, e);
+        }
+    }
+
+    /**
+     * The name the metrics are registered under
+     *
+     * @return OBJECT_NAME
+     * @throws MalformedObjectNameException Never, the name is valid
+     */
+    private static ObjectName objectName() throws MalformedObjectNameException {
+        return new ObjectName(OBJECT_NAME);
+    }
+
+    @Override
+    public long getTicks() {
+        long ticks = 0;
+        for (LongAdder bucket : tickBuckets) {
+            ticks += bucket.sum();
+        }
+        return ticks;
+    }
+
+    @Override
+    public double getMeanTickMillis() {
+        long ticks = getTicks();
+        return ticks == 0 ? 0 : tickNanos.sum() / 1e6 / ticks;
+    }
+
+    @Override
+    public double getMaxTickMillis() {
+        return maxTickNanos.get() / 1e6;
+    }
+
+    @Override
+    public long getMoves() {
+        return moves.sum();
+    }
+
+    @Override
+    public long getBlockedMoves() {
+        return blockedMoves.sum();
+    }
+
+    @Override
+    public long getAttacks() {
+        return attacks.sum();
+    }
+
+    @Override
+    public long getDamageDealt() {
+        return damageDealt.sum();
+    }
+
+    @Override
+    public long getMaximalDeaths() {
+        return maximalDeaths.sum();
+    }
+
+    @Override
+    public long getPredaConDeaths() {
+        return predaConDeaths.sum();
+    }
+
+    @Override
+    public long getMaximalsAlive() {
+        return maximalsAlive.sum();
+    }
+
+    @Override
+    public long getPredaConsAlive() {
+        return predaConsAlive.sum();
+    }
+
+    /**
+     * The metrics in the Prometheus text exposition format (version 0.0.4)
+     *
+     * @return The metrics, one sample a line
+     */
+    public String prometheusText() {
+        StringBuilder sb = new StringBuilder(2048);
+        header(sb, "rw_tick_duration_seconds", "histogram", "Time taken by each simulation step.");
+        long cumulative = 0;
+        for (int i = 0; i < tickBuckets.length; i++) {
+            cumulative += tickBuckets[i].sum();
+            String bound = i < TICK_BUCKETS.length ? Double.toString(TICK_BUCKETS[i]) : "+Inf";
+            sb.append("rw_tick_duration_seconds_bucket{le=\"").append(bound).append("\"} ").append(cumulative).append('\n');
+        }
+        sb.append("rw_tick_duration_seconds_sum ").append(String.format(Locale.ROOT, "%.9f", tickNanos.sum() / 1e9)).append('\n');
+        sb.append("rw_tick_duration_seconds_count ").append(cumulative).append('\n');
+        counter(sb, "rw_moves_total", "Moves made.", getMoves());
+        counter(sb, "rw_blocked_moves_total", "Moves somewhere a robot could not move.", getBlockedMoves());
+        counter(sb, "rw_attacks_total", "Attacks made.", getAttacks());
+        counter(sb, "rw_damage_dealt_total", "Damage done after armor.", getDamageDealt());
+        header(sb, "rw_deaths_total", "counter", "Robots died.");
+        sb.append("rw_deaths_total{faction=\"maximal\"} ").append(getMaximalDeaths()).append('\n');
+        sb.append("rw_deaths_total{faction=\"predacon\"} ").append(getPredaConDeaths()).append('\n');
+        header(sb, "rw_robots_alive", "gauge", "Robots still fighting.");
+        sb.append("rw_robots_alive{faction=\"maximal\"} ").append(getMaximalsAlive()).append('\n');
+        sb.append("rw_robots_alive{faction=\"predacon\"} ").append(getPredaConsAlive()).append('\n');
+        return sb.toString();
+    }
+
+    /**
+     * Add the HELP and TYPE lines of a metric
+     *
+     * @param sb   The text
+     * @param name The name of the metric
+     * @param type The type of the metric
+     * @param help The description of the metric
+     */
+    private static void header(StringBuilder sb, String name, String type, String help) {
+        sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    /**
+     * Add a counter with no labels
+     *
+     * @param sb    The text
+     * @param name  The name of the counter
+     * @param help  The description of the counter
+     * @param value The count
+     */
+    private static void counter(StringBuilder sb, String name, String help, long value) {
+        header(sb, name, "counter", help);
+        sb.append(name).append(' ').append(value).append('\n');
+    }
+
+    /**
+     * Counts what happens in one battle into the metrics
+     */
+    private final class Counter implements BattleObserver {
+
+        /**
+         * The battle (to tell which faction a robot is)
+         */
+        private final Battle battle;
+        /**
+         * When the current tick started (System.nanoTime())
+         */
+        private long tickStart;
+
+        /**
+         * Count a battle
+         *
+         * @param battle The battle
+         */
+        private Counter(Battle battle) {
+            this.battle = battle;
+        }
+
+        @Override
+        public void tickStarted(int tick) {
+            tickStart = System.nanoTime();
+        }
+
+        @Override
+        public void tickEnded(int tick) {
+            long nanos = System.nanoTime() - tickStart;
+            int bucket = 0;
+            while (bucket < TICK_BUCKET_NANOS.length && nanos > TICK_BUCKET_NANOS[bucket]) {
+                bucket++;
+            }
+            tickBuckets[bucket].increment();
+            tickNanos.add(nanos);
+            maxTickNanos.accumulate(nanos);
+        }
+
+        @Override
+        public void moved(int robot, Direction d) {
+            moves.increment();
+        }
+
+        @Override
+        public void blocked(int robot, Direction d) {
+            blockedMoves.increment();
+        }
+
+        @Override
+        public void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+            attacks.increment();
+            if (trueDamage > 0) {
+                damageDealt.add(trueDamage);
+            }
+        }
+
+        @Override
+        public void died(int robot) {
+            if (battle.getRobot(robot) instanceof Maximal) {
+                maximalDeaths.increment();
+                maximalsAlive.decrement();
+            } else {
+                predaConDeaths.increment();
+                predaConsAlive.decrement();
+            }
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package rw.metrics;
+
+/**
+ * The management interface of BattleMetrics, the metrics of every battle it observes as JMX attributes
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public interface BattleMetricsMBean {
+
+    /**
+     * The number of simulation steps completed
+     *
+     * @return The number of ticks
+     */
+    long getTicks();
+
+    /**
+     * The mean time a simulation step took
+     *
+     * @return The mean in milliseconds (0 before the first tick)
+     */
+    double getMeanTickMillis();
+
+    /**
+     * The longest time a simulation step took
+     *
+     * @return The longest in milliseconds
+     */
+    double getMaxTickMillis();
+
+    /**
+     * The number of moves made
+     *
+     * @return The number of moves
+     */
+    long getMoves();
+
+    /**
+     * The number of times a robot tried to move somewhere it could not
+     *
+     * @return The number of blocked moves
+     */
+    long getBlockedMoves();
+
+    /**
+     * The number of attacks made (including on robots already DEAD)
+     *
+     * @return The number of attacks
+     */
+    long getAttacks();
+
+    /**
+     * The damage done after armor by every attack
+     *
+     * @return The total damage
+     */
+    long getDamageDealt();
+
+    /**
+     * The number of Maximals that have died
+     *
+     * @return The number of deaths
+     */
+    long getMaximalDeaths();
+
+    /**
+     * The number of PredaCons that have died
+     *
+     * @return The number of deaths
+     */
+    long getPredaConDeaths();
+
+    /**
+     * The number of Maximals ALIVE
+     *
+     * @return The number of Maximals still fighting
+     */
+    long getMaximalsAlive();
+
+    /**
+     * The number of PredaCons ALIVE
+     *
+     * @return The number of PredaCons still fighting
+     */
+    long getPredaConsAlive();
+}
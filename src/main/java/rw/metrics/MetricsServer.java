@@ -0,0 +1,98 @@
+package rw.metrics;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Serves BattleMetrics in the Prometheus text format at http://localhost:PORT/metrics, for Prometheus to scrape
+ * Only listens on the loopback address, requests are answered on one background thread.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class MetricsServer implements AutoCloseable {
+
+    /**
+     * The path the metrics are served at
+     */
+    public static final String PATH = "/metrics";
+    /**
+     * The content type of the Prometheus text format
+     */
+    private static final String CONTENT_TYPE = "text/plain; version=0.0.4; charset=utf-8";
+
+    /**
+     * The metrics served
+     */
+    private final BattleMetrics metrics;
+    /**
+     * The HTTP server
+     */
+    private final HttpServer server;
+
+    /**
+     * Start serving metrics
+     *
+     * @param metrics The metrics to serve
+     * @param port    The port to listen on (0 for any free port, see getPort())
+     */
+    public MetricsServer(BattleMetrics metrics, int port) {
+        this.metrics = metrics;
+        try {
+            server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot serve metrics on port " + port, e);
+        }
+        server.createContext(PATH, this::handle);
+        server.start();
+    }
+
+    /**
+     * The port the metrics are served on
+     *
+     * @return The port
+     */
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    /**
+     * Answer a request with the current metrics
+     *
+     * @param exchange The request
+     * @throws IOException If the answer cannot be sent
+     */
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!exchange.getRequestMethod().equals("GET") && !exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = metrics.prometheusText().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", CONTENT_TYPE);
+            if (exchange.getRequestMethod().equals("HEAD")) {
+                exchange.sendResponseHeaders(200, -1);
+                return;
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    /**
+     * Stop serving metrics
+     */
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,186 @@
+package rw.shell;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Draws frames of text (such as a battle's gameString()) in place on an ANSI terminal
+ * The first frame clears the screen, after that only the characters that changed since the last frame drawn are written,
+ * by moving the cursor to them (tabs are expanded to spaces first, so columns match the screen). Frames are drawn at most
+ * a given number of times a second, frames in between are skipped without being built. The terminal should be large
+ * enough to show a whole frame.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class AnsiRenderer {
+
+    /**
+     * The frame rate used unless given
+     */
+    public static final int DEFAULT_FPS = 30;
+    /**
+     * Start of every ANSI control sequence
+     */
+    private static final String CSI = "\u001b[";
+    /**
+     * Unchanged characters between two changes shorter than this are written again rather than moved over
+     * (moving the cursor takes about this many characters)
+     */
+    private static final int MOVE_COST = 8;
+    /**
+     * Terminals put tab stops every this many columns
+     */
+    private static final int TAB_WIDTH = 8;
+
+    /**
+     * The terminal
+     */
+    private final PrintStream out;
+    /**
+     * Nanoseconds between frames
+     */
+    private final long frameNanos;
+    /**
+     * The lines of the last frame drawn (null until the first frame)
+     */
+    private String[] lines;
+    /**
+     * When the last frame was drawn (System.nanoTime())
+     */
+    private long lastFrame;
+    /**
+     * The escape sequences and text of the frame being drawn
+     */
+    private final StringBuilder sb = new StringBuilder();
+
+    /**
+     * A renderer drawing at most fps frames a second
+     *
+     * @param out The terminal to draw on
+     * @param fps The most frames to draw a second
+     */
+    public AnsiRenderer(PrintStream out, int fps) {
+        if (fps <= 0) {
+            throw new IllegalArgumentException("Frame rate must be positive!");
+        }
+        this.out = out;
+        this.frameNanos = TimeUnit.SECONDS.toNanos(1) / fps;
+    }
+
+    /**
+     * Draw a frame, unless the last frame was drawn too recently
+     *
+     * @param frame Builds the text of the frame (only called if the frame is drawn)
+     * @param force Draw the frame however recently the last one was drawn (such as before asking the user something)
+     * @return True if the frame was drawn
+     */
+    public boolean frame(Supplier<String> frame, boolean force) {
+        long now = System.nanoTime();
+        if (!force && lines != null && now - lastFrame < frameNanos) {
+            return false;
+        }
+        lastFrame = now;
+        String[] next = frame.get().split("\n", -1);
+        for (int line = 0; line < next.length; line++) {
+            next[line] = expandTabs(next[line]);
+        }
+        draw(next);
+        return true;
+    }
+
+    /**
+     * Replace the tabs of a line with the spaces a terminal would move over, so each character's index is its column
+     *
+     * @param line The line
+     * @return The line without tabs
+     */
+    private static String expandTabs(String line) {
+        if (line.indexOf('\t') < 0) {
+            return line;
+        }
+        StringBuilder expanded = new StringBuilder(line.length() + TAB_WIDTH * 4);
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '\t') {
+                do {
+                    expanded.append(' ');
+                } while (expanded.length() % TAB_WIDTH != 0);
+            } else {
+                expanded.append(c);
+            }
+        }
+        return expanded.toString();
+    }
+
+    /**
+     * Draw the lines of a frame, writing only what changed since the last frame, and leave the cursor below it
+     *
+     * @param next The lines of the frame
+     */
+    private void draw(String[] next) {
+        sb.setLength(0);
+        if (lines == null) {
+            //Clear the screen
+            sb.append(CSI).append("2J");
+            lines = new String[0];
+        }
+        for (int line = 0; line < next.length; line++) {
+            String previous = line < lines.length ? lines[line] : "";
+            String current = next[line];
+            if (previous.length() != current.length()) {
+                //A line of another length (such as a status line) is written whole
+                moveTo(line, 0);
+                sb.append(current).append(CSI).append('K');
+            } else {
+                drawChanges(line, previous, current);
+            }
+        }
+        //Clear anything below the frame (such as a prompt answered) and leave the cursor there
+        moveTo(next.length, 0);
+        sb.append(CSI).append('J');
+        lines = Arrays.copyOf(next, next.length);
+        out.print(sb);
+        out.flush();
+    }
+
+    /**
+     * Write the runs of characters that changed in a line of the same length
+     *
+     * @param line     The line on the screen
+     * @param previous The line as drawn
+     * @param current  The line to draw
+     */
+    private void drawChanges(int line, String previous, String current) {
+        int column = 0;
+        while (column < current.length()) {
+            if (previous.charAt(column) == current.charAt(column)) {
+                column++;
+                continue;
+            }
+            //A run of changes, carried on over short gaps of unchanged characters
+            int start = column;
+            int end = column + 1;
+            for (int scan = end; scan < current.length() && scan - end < MOVE_COST; scan++) {
+                if (previous.charAt(scan) != current.charAt(scan)) {
+                    end = scan + 1;
+                }
+            }
+            moveTo(line, start);
+            sb.append(current, start, end);
+            column = end;
+        }
+    }
+
+    /**
+     * Move the cursor
+     *
+     * @param line   The line (from 0 at the top of the screen)
+     * @param column The column (from 0 at the left of the screen)
+     */
+    private void moveTo(int line, int column) {
+        sb.append(CSI).append(line + 1).append(';').append(column + 1).append('H');
+    }
+}
@@ -0,0 +1,247 @@
+package rw.shell;
+
+import rw.battle.Battle;
+import rw.battle.Robot;
+import rw.util.RandomSource;
+import rw.util.Reader;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Headless batch runs of one battle over a range of seeds
+ * Every run loads its own copy of the battle and has its own random number generator (seeded as rw.shell.Main would be),
+ * runs are spread over all cores and simulated to completion (or until a tick limit) without asking for input.
+ * Reports each run's outcome and survivors, followed by win rates and the distribution of battle lengths.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class Batch {
+
+    /**
+     * Battles still running after this many ticks are stopped and counted as a draw (unless given as an argument)
+     */
+    private static final int DEFAULT_MAX_TICKS = 10000;
+
+    /**
+     * Number of bars in the tick count histogram
+     */
+    private static final int HISTOGRAM_BUCKETS = 10;
+
+    /**
+     * The kind of random number generator each battle uses (lcg gives the same numbers as java.util.Random)
+     */
+    private static String randomKind = "lcg";
+
+    /**
+     * Check arguments, load battle, run every seed and report
+     *
+     * @param args Program arguments, Usage: Batch &lt;battle&gt; &lt;first seed&gt; &lt;runs&gt; [max ticks] [threads] [--rng=lcg|splitmix]
+     */
+    public static void main(String[] args) {
+        if (args.length > 0 && args[args.length - 1].startsWith("--rng=")) {
+            randomKind = args[args.length - 1].substring("--rng=".length());
+            args = Arrays.copyOf(args, args.length - 1);
+        }
+        if (args.length < 3 || args.length > 5 || !(randomKind.equals("lcg") || randomKind.equals("splitmix"))) {
+            System.err.println("Program requires 3 to 5 arguments!");
+            System.err.println("Usage: Batch <battle> <first seed> <runs> [max ticks] [threads] [--rng=lcg|splitmix]");
+            System.exit(1);
+        }
+        File fileBattle = new File(args[0]);
+        int firstSeed = parseArgument(args[1], "Second argument %s should be integer seed!%n");
+        int runs = parseArgument(args[2], "Third argument %s should be positive number of runs!%n");
+        int maxTicks = args.length > 3 ? parseArgument(args[3], "Fourth argument %s should be positive tick limit!%n") : DEFAULT_MAX_TICKS;
+        int threads = args.length > 4 ? parseArgument(args[4], "Fifth argument %s should be positive number of threads!%n") : Runtime.getRuntime().availableProcessors();
+        if (runs <= 0 || maxTicks <= 0 || threads <= 0) {
+            System.err.println("Runs, tick limit and threads must be positive!");
+            System.exit(1);
+        }
+        if (!fileBattle.exists() || !fileBattle.isFile() || !fileBattle.canRead()) {
+            System.err.printf("The battle file %s does not exist!%n", fileBattle.getAbsoluteFile());
+            System.exit(1);
+        }
+
+        //Nothing is printed or logged by the battles themselves
+        Menu.setupQuiet();
+        //Load once up front so a bad battle file is reported before any runs start
+        try {
+            Reader.loadBattle(fileBattle);
+        } catch (RuntimeException e) {
+            System.err.printf("The battle file %s could not be loaded: %s%n", fileBattle.getAbsoluteFile(), e.getMessage());
+            System.exit(1);
+        }
+
+        List<Result> results = runAll(fileBattle, firstSeed, runs, maxTicks, threads);
+        report(results);
+    }
+
+    /**
+     * Parse a positive (or seed) integer argument, exit if it is not an integer
+     *
+     * @param argument The argument text
+     * @param error    The error message format if it is not an integer
+     * @return The integer value
+     */
+    private static int parseArgument(String argument, String error) {
+        try {
+            return Integer.parseInt(argument);
+        } catch (NumberFormatException e) {
+            System.err.printf(error, argument);
+            System.exit(1);
+            return 0;
+        }
+    }
+
+    /**
+     * Run every seed on a pool of threads
+     *
+     * @param fileBattle The battle file
+     * @param firstSeed  The seed of the first run (runs use consecutive seeds)
+     * @param runs       The number of runs
+     * @param maxTicks   The tick limit of a run
+     * @param threads    The number of threads to run on
+     * @return The result of every run in seed order
+     */
+    private static List<Result> runAll(File fileBattle, int firstSeed, int runs, int maxTicks, int threads) {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Result>> futures = new ArrayList<>(runs);
+            for (int run = 0; run < runs; run++) {
+                int seed = firstSeed + run;
+                futures.add(pool.submit(() -> runOne(fileBattle, seed, maxTicks)));
+            }
+            List<Result> results = new ArrayList<>(runs);
+            for (Future<Result> future : futures) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Batch was interrupted!", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Batch run failed: " + e.getCause().getMessage(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Simulate one battle to completion (or the tick limit)
+     *
+     * @param fileBattle The battle file
+     * @param seed       The seed of the run
+     * @param maxTicks   The tick limit of the run
+     * @return The outcome of the run
+     */
+    private static Result runOne(File fileBattle, int seed, int maxTicks) {
+        //Runs are already spread over the pool, so each reads its file on its own thread
+        Battle battle = Reader.loadBattle(fileBattle, 1);
+        battle.setRandom(RandomSource.of(randomKind, seed));
+        while (battle.isActive() && battle.getTick() < maxTicks) {
+            battle.advanceSimulation();
+        }
+        StringBuilder survivors = new StringBuilder();
+        for (int index = 0; index < battle.getRobotCount(); index++) {
+            Robot robot = battle.getRobot(index);
+            if (robot.isAlive()) {
+                if (!survivors.isEmpty()) {
+                    survivors.append(", ");
+                }
+                survivors.append(robot.shortString()).append(' ').append(robot.getName()).append(' ').append(robot.getHealth());
+            }
+        }
+        Winner winner;
+        if (battle.getAliveMaximals() > 0 && battle.getAlivePredaCons() > 0) {
+            winner = Winner.DRAW;
+        } else if (battle.getAliveMaximals() > 0) {
+            winner = Winner.MAXIMALS;
+        } else if (battle.getAlivePredaCons() > 0) {
+            winner = Winner.PREDACONS;
+        } else {
+            winner = Winner.NONE;
+        }
+        return new Result(seed, battle.getTick(), winner, survivors.toString());
+    }
+
+    /**
+     * Print every run, the win rates and the distribution of ticks per run
+     *
+     * @param results The result of every run in seed order
+     */
+    private static void report(List<Result> results) {
+        int[] wins = new int[Winner.values().length];
+        int[] ticks = new int[results.size()];
+        System.out.println("SEED\tTICKS\tWINNER\tSURVIVORS");
+        for (int i = 0; i < results.size(); i++) {
+            Result result = results.get(i);
+            wins[result.winner().ordinal()]++;
+            ticks[i] = result.ticks();
+            System.out.println(result.seed() + "\t" + result.ticks() + "\t" + result.winner() + "\t" + result.survivors());
+        }
+
+        System.out.println();
+        System.out.printf("Runs: %d%n", results.size());
+        for (Winner winner : Winner.values()) {
+            System.out.printf("%-9s %6d  %6.2f%%%n", winner, wins[winner.ordinal()], 100.0 * wins[winner.ordinal()] / results.size());
+        }
+
+        Arrays.sort(ticks);
+        long total = 0;
+        for (int t : ticks) {
+            total += t;
+        }
+        System.out.println();
+        System.out.printf("Ticks: min %d, mean %.1f, p50 %d, p90 %d, p99 %d, max %d%n", ticks[0], (double) total / ticks.length,
+                percentile(ticks, 50), percentile(ticks, 90), percentile(ticks, 99), ticks[ticks.length - 1]);
+        int min = ticks[0];
+        int width = Math.max(1, (ticks[ticks.length - 1] - min) / HISTOGRAM_BUCKETS + 1);
+        int[] buckets = new int[HISTOGRAM_BUCKETS];
+        for (int t : ticks) {
+            buckets[Math.min(HISTOGRAM_BUCKETS - 1, (t - min) / width)]++;
+        }
+        for (int bucket = 0; bucket < HISTOGRAM_BUCKETS; bucket++) {
+            if (buckets[bucket] > 0) {
+                System.out.printf("%6d-%-6d %6d %s%n", min + bucket * width, min + (bucket + 1) * width - 1, buckets[bucket],
+                        "*".repeat((int) Math.ceil(50.0 * buckets[bucket] / ticks.length)));
+            }
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of sorted values
+     *
+     * @param sorted  The values in increasing order
+     * @param percent The percentile to find (0-100)
+     * @return The value at that percentile
+     */
+    private static int percentile(int[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+
+    /**
+     * How a run ended, DRAW if both sides were still alive at the tick limit, NONE if neither side is alive
+     */
+    private enum Winner {
+        MAXIMALS, PREDACONS, DRAW, NONE
+    }
+
+    /**
+     * The outcome of one run
+     *
+     * @param seed      The seed of the run
+     * @param ticks     The ticks simulated
+     * @param winner    Which side won
+     * @param survivors The robots still alive at the end
+     */
+    private record Result(int seed, int ticks, Winner winner, String survivors) {
+    }
+}
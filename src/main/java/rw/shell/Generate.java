@@ -0,0 +1,113 @@
+package rw.shell;
+
+import rw.util.ScenarioGenerator;
+
+import java.io.File;
+import java.io.UncheckedIOException;
+import java.util.Locale;
+
+/**
+ * Generates a battle file from a seed (see rw.util.ScenarioGenerator), written straight to the file as it is made so maps
+ * far larger than memory can be made. The same arguments always give the same file.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class Generate {
+
+    /**
+     * How to run the program
+     */
+    private static final String USAGE = "Usage: Generate <file> <rows> <columns> <seed> [--walls=F] [--caves=N] [--robots=F]"
+            + " [--clustering=F] [--cluster-size=N] [--health=MIN-MAX] [--weapon=MIN-MAX] [--armor=MIN-MAX] [--dense]";
+
+    /**
+     * Check arguments, generate the battle and report how many robots it has
+     *
+     * @param args Program arguments, see USAGE
+     */
+    public static void main(String[] args) {
+        if (args.length < 4) {
+            System.err.println("Program requires at least 4 arguments!");
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+        File file = new File(args[0]);
+        ScenarioGenerator generator = null;
+        try {
+            generator = new ScenarioGenerator(Integer.parseInt(args[1]), Integer.parseInt(args[2]), Long.parseLong(args[3]));
+            for (int i = 4; i < args.length; i++) {
+                option(generator, args[i]);
+            }
+        } catch (NumberFormatException e) {
+            System.err.println("Rows, columns, seed and option values should be numbers!");
+            System.err.println(USAGE);
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.err.println(USAGE);
+            System.exit(1);
+        }
+
+        long start = System.nanoTime();
+        long robots = 0;
+        try {
+            robots = generator.write(file);
+        } catch (UncheckedIOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        System.out.printf(Locale.ROOT, "Wrote %s with %d robots in %.1f s%n", file, robots, (System.nanoTime() - start) / 1e9);
+    }
+
+    /**
+     * Apply an option
+     *
+     * @param generator The generator
+     * @param option    The option, --name=value or --dense
+     */
+    private static void option(ScenarioGenerator generator, String option) {
+        if (option.equals("--dense")) {
+            generator.setSparse(false);
+            return;
+        }
+        int equals = option.indexOf('=');
+        if (!option.startsWith("--") || equals < 0) {
+            throw new IllegalArgumentException("Unknown option " + option + "!");
+        }
+        String value = option.substring(equals + 1);
+        switch (option.substring(2, equals)) {
+            case "walls" -> generator.setWallDensity(Double.parseDouble(value));
+            case "caves" -> generator.setCaveSteps(Integer.parseInt(value));
+            case "robots" -> generator.setRobotDensity(Double.parseDouble(value));
+            case "clustering" -> generator.setClustering(Double.parseDouble(value));
+            case "cluster-size" -> generator.setClusterSize(Integer.parseInt(value));
+            case "health" -> generator.setHealth(min(value), max(value));
+            case "weapon" -> generator.setWeapon(min(value), max(value));
+            case "armor" -> generator.setArmor(min(value), max(value));
+            default -> throw new IllegalArgumentException("Unknown option " + option + "!");
+        }
+    }
+
+    /**
+     * The least value of a range
+     *
+     * @param range MIN-MAX, or a single value
+     * @return MIN
+     */
+    private static int min(String range) {
+        int dash = range.indexOf('-', 1);
+        return Integer.parseInt(dash < 0 ? range : range.substring(0, dash));
+    }
+
+    /**
+     * The most value of a range
+     *
+     * @param range MIN-MAX, or a single value
+     * @return MAX
+     */
+    private static int max(String range) {
+        int dash = range.indexOf('-', 1);
+        return Integer.parseInt(dash < 0 ? range : range.substring(dash + 1));
+    }
+}
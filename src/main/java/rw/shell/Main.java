@@ -1,12 +1,20 @@
 package rw.shell;
 
 import rw.battle.Battle;
+import rw.battle.BattleSnapshot;
+import rw.battle.TiledEngine;
+import rw.metrics.BattleMetrics;
+import rw.metrics.MetricsServer;
+import rw.util.JournalWriter;
+import rw.util.LogLevel;
+import rw.util.Logger;
+import rw.util.RandomSource;
 import rw.util.Reader;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * PredaCons vs Maximals
@@ -20,39 +28,143 @@ public final class Main {
 
 
     /**
-     * A program-wide random number generator
+     * The integer seed for the battle's random number generator
      */
-    public static Random random = new Random(12345);
+    private static int seed;
+
+    /**
+     * The kind of random number generator the battle uses (lcg gives the same numbers as java.util.Random)
+     */
+    private static String randomKind = "lcg";
+
+    /**
+     * The number of threads to advance the battle on (1 advances one robot at a time)
+     */
+    private static int threads = 1;
+
+    /**
+     * The tile size of the parallel engine
+     */
+    private static int tileSize = TiledEngine.DEFAULT_TILE_SIZE;
+
+    /**
+     * The longest time in milliseconds a log entry waits before being written to the log file
+     */
+    private static long logFlushMillis = Logger.DEFAULT_FLUSH_MILLIS;
+
+    /**
+     * Messages below this level are not printed or logged (moves and attacks are INFO, the final battle is WARN)
+     */
+    private static LogLevel logLevel = LogLevel.INFO;
+
+    /**
+     * Frames a second to draw the battle in place on an ANSI terminal, 0 to print it after every step instead
+     */
+    private static int ansiFps = 0;
+
+    /**
+     * Run without printing to the screen or asking for input (the simulation is run to completion)
+     */
+    private static boolean headless = false;
+
+    /**
+     * The binary journal to record the battle in, null for none
+     */
+    private static File fileJournal;
+
+    /**
+     * The snapshot file the battle is saved to every checkpointEvery ticks, null for none
+     */
+    private static File fileCheckpoint;
+
+    /**
+     * The number of ticks between checkpoints
+     */
+    private static int checkpointEvery = 100;
+
+    /**
+     * The snapshot to resume a saved battle from instead of loading the battle file, null for none
+     */
+    private static File fileResume;
+
+    /**
+     * Publish metrics of the battle as an MBean
+     */
+    private static boolean metrics = false;
+
+    /**
+     * The port to serve metrics on in the Prometheus text format, -1 for none
+     */
+    private static int metricsPort = -1;
 
     /**
      * Check arguments, read battle, setup logger, and start simulation
      *
-     * @param args Program arguments, Usage: Main &lt;battle&gt; &lt;log&gt; &lt;seed&gt;
+     * @param args Program arguments, Usage: Main &lt;battle&gt; &lt;log&gt; &lt;seed&gt; [options]
      */
     public static void main(String[] args) {
-        //Check for 3 arguments
+        //Check for 3 arguments (and any options after them)
         checkArgument(args);
+        checkOptions(args);
 
         //Get the two filenames
         File fileBattle = new File(args[0]);
         File fileLog = new File(args[1]);
 
-        //Create the random number generator
+        //Read the seed for the random number generator
         setupRNG(args[2]);
 
         //Check if files are accessible
         checkFiles(fileBattle, fileLog);
 
         //Set up Menu with logger and read battle from file
-        Menu.setup(fileLog);
+        Menu.setup(fileLog, logFlushMillis);
+        Menu.setLevel(logLevel);
+        if (headless) {
+            Menu.setupHeadless();
+        } else if (ansiFps > 0) {
+            Menu.setupAnsi();
+        }
         Menu.println("Arguments: " + Arrays.toString(args));
-        Battle battle = Reader.loadBattle(fileBattle);
-        if (battle == null) {
-            System.err.println("The Reader class is returning a null file still!");
-            System.exit(1);
+        Battle battle;
+        if (fileResume != null) {
+            //Carry on from a saved battle, which has its own random number generator state
+            battle = BattleSnapshot.read(fileResume);
+        } else {
+            battle = Reader.loadBattle(fileBattle);
+            if (battle == null) {
+                System.err.println("The Reader class is returning a null file still!");
+                System.exit(1);
+            }
+            battle.setRandom(RandomSource.of(randomKind, seed));
+        }
+        if (threads > 1) {
+            battle.setEngine(new TiledEngine(new ForkJoinPool(threads), tileSize));
+        }
+        JournalWriter journal = null;
+        if (fileJournal != null) {
+            journal = new JournalWriter(fileJournal);
+            battle.addObserver(journal);
+        }
+        MetricsServer server = null;
+        if (metrics || metricsPort >= 0) {
+            BattleMetrics battleMetrics = new BattleMetrics();
+            battle.addObserver(battleMetrics.observe(battle));
+            battleMetrics.register();
+            if (metricsPort >= 0) {
+                server = new MetricsServer(battleMetrics, metricsPort);
+                Menu.println(String.format("Serving metrics at http://localhost:%d%s", server.getPort(), MetricsServer.PATH));
+            }
         }
         //Run simulation
         runSimulation(battle);
+        if (journal != null) {
+            journal.close();
+        }
+        if (server != null) {
+            server.close();
+        }
+        Menu.close();
     }
 
     /**
@@ -61,21 +173,67 @@ public final class Main {
      * @param args The program arguments
      */
     private static void checkArgument(String[] args) {
-        if (args.length != 3) {
+        if (args.length < 3) {
             System.err.println("Program requires 3 arguments!");
-            System.err.println("Usage: Main <battle> <log> <seed>");
+            System.err.println("Usage: Main <battle> <log> <seed> [options]");
+            System.err.println("Options: --rng=lcg|splitmix --threads=N --tile=N --log-flush=MILLIS --log-level=LEVEL --headless --journal=FILE --checkpoint=FILE --checkpoint-every=N --resume=FILE --ansi[=FPS] --metrics --metrics-port=PORT");
             System.exit(1);
         }
     }
 
     /**
-     * Setup random number generator
+     * Read the options that follow the 3 necessary arguments
+     *
+     * @param args The program arguments
+     */
+    private static void checkOptions(String[] args) {
+        for (int i = 3; i < args.length; i++) {
+            String option = args[i];
+            String value = option.contains("=") ? option.substring(option.indexOf('=') + 1) : "";
+            if (option.startsWith("--rng=") && (value.equals("lcg") || value.equals("splitmix"))) {
+                randomKind = value;
+            } else if (option.startsWith("--threads=") && value.matches("[1-9][0-9]*")) {
+                threads = Integer.parseInt(value);
+            } else if (option.startsWith("--tile=") && value.matches("[1-9][0-9]*")) {
+                tileSize = Integer.parseInt(value);
+            } else if (option.startsWith("--log-flush=") && value.matches("[1-9][0-9]*")) {
+                logFlushMillis = Long.parseLong(value);
+            } else if (option.startsWith("--log-level=") && value.matches("(?i)debug|info|warn|error|off")) {
+                logLevel = LogLevel.valueOf(value.toUpperCase());
+            } else if (option.equals("--ansi")) {
+                ansiFps = AnsiRenderer.DEFAULT_FPS;
+            } else if (option.startsWith("--ansi=") && value.matches("[1-9][0-9]*")) {
+                ansiFps = Integer.parseInt(value);
+            } else if (option.equals("--headless")) {
+                headless = true;
+            } else if (option.startsWith("--journal=") && !value.isEmpty()) {
+                fileJournal = new File(value);
+            } else if (option.startsWith("--checkpoint=") && !value.isEmpty()) {
+                fileCheckpoint = new File(value);
+            } else if (option.startsWith("--checkpoint-every=") && value.matches("[1-9][0-9]*")) {
+                checkpointEvery = Integer.parseInt(value);
+            } else if (option.startsWith("--resume=") && !value.isEmpty()) {
+                fileResume = new File(value);
+            } else if (option.equals("--metrics")) {
+                metrics = true;
+            } else if (option.startsWith("--metrics-port=") && value.matches("[0-9]{1,5}") && Integer.parseInt(value) <= 65535) {
+                metricsPort = Integer.parseInt(value);
+            } else {
+                System.err.printf("Option %s is not valid!%n", option);
+                System.err.println("Options: --rng=lcg|splitmix --threads=N --tile=N --log-flush=MILLIS --log-level=LEVEL --headless --journal=FILE --checkpoint=FILE --checkpoint-every=N --resume=FILE --ansi[=FPS] --metrics --metrics-port=PORT");
+                System.exit(1);
+            }
+        }
+    }
+
+    /**
+     * Setup random number generator seed
      *
      * @param seed The integer seed for the RNG
      */
     private static void setupRNG(String seed) {
         try {
-            random = new Random(Integer.parseInt(seed));
+            Main.seed = Integer.parseInt(seed);
         } catch (Exception e) {
             System.err.printf("Third argument %s should be integer seed!%n", seed);
             System.exit(1);
@@ -95,6 +253,11 @@ public final class Main {
             System.err.printf("The battle file %s does not exist!%n", fileBattle.getAbsoluteFile());
             System.exit(1);
         }
+        //Check snapshot to resume from
+        if (fileResume != null && (!fileResume.exists() || !fileResume.isFile() || !fileResume.canRead())) {
+            System.err.printf("The snapshot file %s does not exist!%n", fileResume.getAbsoluteFile());
+            System.exit(1);
+        }
         //Check log file overwrite?
         if (fileLog.exists() && fileLog.isFile() && fileLog.canWrite()) {
             System.out.println("Overwrite log file?");
@@ -132,16 +295,37 @@ public final class Main {
      * @param battle The loaded battle state to simulate
      */
     private static void runSimulation(Battle battle) {
+        //Drawn in place instead of printed (nothing is shown when headless)
+        AnsiRenderer screen = ansiFps > 0 && !headless ? new AnsiRenderer(System.out, ansiFps) : null;
         while (battle.isActive()) {
-            String message = battle.gameString();
-            Menu.println(message);
+            Menu.println(LogLevel.INFO, battle::gameString);
+            if (screen != null) {
+                //Always drawn before asking to step
+                screen.frame(() -> frame(battle), Menu.willAsk());
+            }
             if (Menu.continueSimulation()) {
                 battle.advanceSimulation();
+                if (fileCheckpoint != null && battle.getTick() % checkpointEvery == 0) {
+                    BattleSnapshot.write(battle, fileCheckpoint);
+                }
             } else {
                 battle.endSimulation();
             }
         }
-        String message = battle.gameString();
-        Menu.println(message);
+        Menu.println(LogLevel.WARN, battle::gameString);
+        if (screen != null) {
+            screen.frame(() -> frame(battle), true);
+        }
+    }
+
+    /**
+     * The frame drawn by the ANSI renderer, a status line followed by the game
+     *
+     * @param battle The battle
+     * @return The text of the frame
+     */
+    private static String frame(Battle battle) {
+        return "Tick " + battle.getTick() + "\tMaximals " + battle.getAliveMaximals()
+                + "\tPredaCons " + battle.getAlivePredaCons() + "\n" + battle.gameString();
     }
 }
@@ -1,9 +1,13 @@
 package rw.shell;
 
+import rw.util.LogLevel;
 import rw.util.Logger;
 
+import java.io.BufferedOutputStream;
 import java.io.File;
+import java.io.PrintStream;
 import java.util.Scanner;
+import java.util.function.Supplier;
 
 /**
  * Simple menu so user can enter commands to continue or stop simulation
@@ -17,6 +21,10 @@ public final class Menu {
      * The scanner to access System.in input commands
      */
     private static final Scanner scanner = new Scanner(System.in);
+    /**
+     * Buffered screen output, flushed before every prompt (and when closed) rather than every line
+     */
+    private static final PrintStream console = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false, System.out.charset());
     /**
      * A Logger for logging program execution to an output file
      */
@@ -27,29 +35,138 @@ public final class Menu {
      */
     private static boolean ignore = false;
 
+    /**
+     * Messages below this level are discarded (without being formatted if given as a Supplier)
+     */
+    private static LogLevel level = LogLevel.INFO;
+
+    /**
+     * Should messages be printed to the screen as well as logged
+     */
+    private static boolean echo = true;
+
     /**
      * Set up the logger with a filename
      *
      * @param fileLog The file to log to
      */
     public static void setup(File fileLog) {
-        logger = new Logger(fileLog);
+        setup(fileLog, Logger.DEFAULT_FLUSH_MILLIS);
+    }
 
+    /**
+     * Set up the logger with a filename and how often it writes to the file
+     * Screen output is flushed when the program exits (if close() was not called)
+     *
+     * @param fileLog     The file to log to
+     * @param flushMillis The longest time in milliseconds a log entry waits before being written to the file
+     */
+    public static void setup(File fileLog, long flushMillis) {
+        logger = new Logger(fileLog, flushMillis);
+        Runtime.getRuntime().addShutdownHook(new Thread(console::flush));
     }
 
     /**
-     * Print the following object to the screen
+     * Flush the screen output and write everything logged to the log file
+     */
+    public static void close() {
+        console.flush();
+        if (logger != null) {
+            logger.close();
+        }
+    }
+
+    /**
+     * Set up the menu to discard everything printed, no log file is needed
+     */
+    public static void setupQuiet() {
+        level = LogLevel.OFF;
+    }
+
+    /**
+     * Set the level messages must be at (or above) to be printed and logged
+     *
+     * @param level The level, OFF to print and log nothing
+     */
+    public static void setLevel(LogLevel level) {
+        Menu.level = level;
+    }
+
+    /**
+     * Run without a user at the screen, messages are only logged and the simulation never asks for input
+     */
+    public static void setupHeadless() {
+        echo = false;
+        ignore = true;
+    }
+
+    /**
+     * Leave the screen to an AnsiRenderer, messages are only logged (the simulation still asks for input)
+     */
+    public static void setupAnsi() {
+        echo = false;
+    }
+
+    /**
+     * Will continueSimulation() ask the user before stepping
+     *
+     * @return True if yes, false if user input is being ignored
+     */
+    public static boolean willAsk() {
+        return !ignore;
+    }
+
+    /**
+     * Would a message at the given level be printed and logged
+     * (check before building an expensive message)
+     *
+     * @param level The level of the message
+     * @return True if yes, false otherwise
+     */
+    public static boolean isLoggable(LogLevel level) {
+        return level != LogLevel.OFF && level.compareTo(Menu.level) >= 0;
+    }
+
+    /**
+     * Print the following object to the screen at INFO level
      *
      * @param obj The object to print to screen (note, a new line is added on the end)
      */
     public static void println(Object obj) {
+        println(LogLevel.INFO, obj);
+    }
+
+    /**
+     * Print the following object to the screen (if the level is being logged)
+     *
+     * @param level The level of the message
+     * @param obj   The object to print to screen (note, a new line is added on the end)
+     */
+    public static void println(LogLevel level, Object obj) {
+        if (!isLoggable(level)) {
+            return;
+        }
         if (logger == null) {
             throw new RuntimeException("Cannot log until log file has been setup(File)!");
         }
-        System.out.println(obj);
+        if (echo) {
+            console.println(obj);
+        }
         logger.log(obj);
     }
 
+    /**
+     * Print a message to the screen (if the level is being logged), the message is only built if it will be printed
+     *
+     * @param level   The level of the message
+     * @param message Builds the object to print to screen (note, a new line is added on the end)
+     */
+    public static void println(LogLevel level, Supplier<?> message) {
+        if (isLoggable(level)) {
+            println(level, (Object) message.get());
+        }
+    }
+
     /**
      * Should the simulation (E)xit, (C)omplete, or anything else go step by step
      * (Note, if 'C' is selected the answer will always be true for rest of simulation
@@ -58,6 +175,7 @@ public final class Menu {
      */
     public static boolean continueSimulation() {
         if (!ignore) {
+            console.flush();
             System.out.println("(E)xit / (C)omplete/: Anything else to step once");
             String line = scanner.nextLine();
             if (line.equals("E")) {
@@ -75,6 +193,7 @@ public final class Menu {
      * @return True if 'Y', otherwise False
      */
     public static boolean checkYes() {
+        console.flush();
         System.out.println("(Y)es: Anything else is No");
         return scanner.nextLine().equals("Y");
     }
@@ -0,0 +1,113 @@
+package rw.shell;
+
+import rw.battle.Battle;
+import rw.battle.BattleObserver;
+import rw.battle.Robot;
+import rw.enums.Direction;
+import rw.util.JournalReader;
+import rw.util.Reader;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.PrintStream;
+
+/**
+ * Prints what happened in a range of ticks of a journaled battle (see the --journal option of rw.shell.Main)
+ * Lines are printed as the battle logged them, robots are named from the battle file the journaled battle was loaded from.
+ * Only the ticks asked for are read from the journal.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class Replay {
+
+    /**
+     * Check arguments, open journal and print the ticks asked for
+     *
+     * @param args Program arguments, Usage: Replay &lt;journal&gt; &lt;battle&gt; &lt;first tick&gt; [last tick]
+     */
+    public static void main(String[] args) {
+        if (args.length < 3 || args.length > 4) {
+            System.err.println("Program requires 3 or 4 arguments!");
+            System.err.println("Usage: Replay <journal> <battle> <first tick> [last tick]");
+            System.exit(1);
+        }
+        File fileJournal = new File(args[0]);
+        File fileBattle = new File(args[1]);
+        for (File file : new File[]{fileJournal, fileBattle}) {
+            if (!file.exists() || !file.isFile() || !file.canRead()) {
+                System.err.printf("The file %s does not exist!%n", file.getAbsoluteFile());
+                System.exit(1);
+            }
+        }
+        int from = 0;
+        int to = 0;
+        try {
+            from = Integer.parseInt(args[2]);
+            to = args.length > 3 ? Integer.parseInt(args[3]) : from;
+        } catch (NumberFormatException e) {
+            System.err.println("Ticks should be integers!");
+            System.exit(1);
+        }
+
+        Battle battle = Reader.loadBattle(fileBattle);
+        PrintStream out = new PrintStream(new BufferedOutputStream(System.out, 1 << 16), false);
+        try (JournalReader journal = new JournalReader(fileJournal)) {
+            journal.replay(from, to + 1, new Printer(battle, out));
+        } catch (IllegalArgumentException e) {
+            out.flush();
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        out.flush();
+    }
+
+    /**
+     * Prints every event in the form the battle logs it
+     *
+     * @param battle The battle as loaded (for the robots)
+     * @param out    Where to print
+     */
+    private record Printer(Battle battle, PrintStream out) implements BattleObserver {
+
+        @Override
+        public void tickStarted(int tick) {
+            out.printf("Tick %d%n", tick);
+        }
+
+        @Override
+        public void moved(int robot, Direction d) {
+            out.printf("%s moving %s%n", name(robot), d);
+        }
+
+        @Override
+        public void blocked(int robot, Direction d) {
+            moved(robot, d);
+            out.printf("%s  tried to move somewhere it could not!%n", name(robot));
+        }
+
+        @Override
+        public void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+            Robot attacked = battle.getRobot(target);
+            out.printf("%s attacking %s in direction %s%n", name(robot), attacked.getClass(), d);
+            if (trueDamage >= 0) {
+                out.printf("%s attacked %s for %d damage against %d defense for %d%n", name(robot), attacked.shortString(), damage, attacked.armorStrength(), trueDamage);
+            }
+        }
+
+        @Override
+        public void died(int robot) {
+            out.printf("%s died!%n", name(robot));
+        }
+
+        /**
+         * The short name of a robot
+         *
+         * @param robot The index of the robot
+         * @return "CLASS(ID)" form of robot
+         */
+        private String name(int robot) {
+            return battle.getRobot(robot).shortString();
+        }
+    }
+}
@@ -0,0 +1,516 @@
+package rw.util;
+
+import rw.battle.Battle;
+import rw.battle.Entity;
+import rw.battle.Maximal;
+import rw.battle.PredaCon;
+import rw.battle.Wall;
+import rw.enums.WeaponType;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Parses the lines of a battle text file straight from bytes, for Reader
+ * Lines are found in a reused byte buffer and split into fields in reused arrays, numbers and keywords are read from
+ * the bytes in place, so only robot names (and messages of errors) become Strings.
+ * Every line is treated exactly as trim(), split(","), Integer.parseInt and toUpperCase() would treat it
+ * (fields with non-ASCII bytes are decoded and handled that way).
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+final class BattleParser {
+
+    /**
+     * Starting size of the line buffer (it grows to fit the longest line)
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * The most fields of a line that are ever used (a MAXIMAL line)
+     */
+    private static final int MAX_FIELDS = 8;
+    /**
+     * Entity type keyword of a wall
+     */
+    private static final byte[] WALL = "WALL".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Entity type keyword of a Maximal
+     */
+    private static final byte[] MAXIMAL = "MAXIMAL".getBytes(StandardCharsets.US_ASCII);
+    /**
+     * Entity type keyword of a PredaCon
+     */
+    private static final byte[] PREDACON = "PREDACON".getBytes(StandardCharsets.US_ASCII);
+
+    /**
+     * Bytes read and not yet returned as lines are buffer[position, limit)
+     */
+    private byte[] buffer = new byte[BUFFER_SIZE];
+    /**
+     * Start of the unread bytes in the buffer
+     */
+    private int position;
+    /**
+     * End of the bytes in the buffer
+     */
+    private int limit;
+    /**
+     * Bytes of the input dropped from the front of the buffer so far (so buffer[0] is this far into the input)
+     */
+    private long discarded;
+    /**
+     * Did the last line end in a carriage return (so a line feed straight after it is part of the same line end)
+     */
+    private boolean carriageReturn;
+    /**
+     * The current line is buffer[lineStart, lineEnd) (without its line end)
+     */
+    private int lineStart;
+    /**
+     * End of the current line
+     */
+    private int lineEnd;
+    /**
+     * Start of each field of the last line split (only the first MAX_FIELDS are kept)
+     */
+    private final int[] fieldStart = new int[MAX_FIELDS];
+    /**
+     * End of each field of the last line split
+     */
+    private final int[] fieldEnd = new int[MAX_FIELDS];
+    /**
+     * The number of fields of the last line split (as String.split would give, so without trailing empty fields)
+     */
+    private int fieldCount;
+    /**
+     * The row of the last entity parsed
+     */
+    private int row;
+    /**
+     * The column of the last entity parsed
+     */
+    private int column;
+
+    /**
+     * Read the next line (ended by \n, \r or \r\n, or the end of the input, as BufferedReader.readLine() does)
+     *
+     * @param in The input to read from
+     * @return True if there was a line, false at the end of the input
+     * @throws IOException If the input cannot be read
+     */
+    boolean nextLine(InputStream in) throws IOException {
+        if (carriageReturn) {
+            carriageReturn = false;
+            if ((position < limit || fill(in)) && buffer[position] == '\n') {
+                position++;
+            }
+        }
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                byte b = buffer[scan];
+                if (b == '\n' || b == '\r') {
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    carriageReturn = b == '\r';
+                    return true;
+                }
+            }
+            int scanned = scan - position;
+            if (!fill(in)) {
+                if (position < limit) {
+                    lineStart = position;
+                    lineEnd = limit;
+                    position = limit;
+                    return true;
+                }
+                return false;
+            }
+            scan = position + scanned;
+        }
+    }
+
+    /**
+     * Read more of the input into the buffer (moving unread bytes to the front, and growing it if full)
+     *
+     * @param in The input to read from
+     * @return True if more bytes were read, false at the end of the input
+     * @throws IOException If the input cannot be read
+     */
+    private boolean fill(InputStream in) throws IOException {
+        if (position > 0) {
+            System.arraycopy(buffer, position, buffer, 0, limit - position);
+            discarded += position;
+            limit -= position;
+            position = 0;
+        }
+        if (limit == buffer.length) {
+            byte[] bigger = new byte[buffer.length * 2];
+            System.arraycopy(buffer, 0, bigger, 0, limit);
+            buffer = bigger;
+        }
+        int read = in.read(buffer, limit, buffer.length - limit);
+        if (read < 0) {
+            return false;
+        }
+        limit += read;
+        return true;
+    }
+
+    /**
+     * How far into the input the lines read so far end (a line feed after a final carriage return may not be counted,
+     * it is read as a blank line if the input is carried on from here)
+     *
+     * @return The number of bytes of the input taken up by the lines read
+     */
+    long getOffset() {
+        return discarded + position;
+    }
+
+    /**
+     * Does the current line, trimmed, equal a word ignoring case
+     *
+     * @param word The word (ASCII)
+     * @return True if yes, false otherwise
+     */
+    boolean lineEqualsIgnoreCase(String word) {
+        int start = trimStart(buffer, lineStart, lineEnd);
+        int end = trimEnd(buffer, start, lineEnd);
+        if (!isAscii(buffer, start, end)) {
+            return string(buffer, start, end).equalsIgnoreCase(word);
+        }
+        if (end - start != word.length()) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (upperCase(buffer[i]) != upperCase((byte) word.charAt(i - start))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The current line, trimmed, as an integer
+     *
+     * @return The integer
+     * @throws NumberFormatException If the line is not an integer
+     */
+    int lineInt() {
+        int start = trimStart(buffer, lineStart, lineEnd);
+        return parseInt(buffer, start, trimEnd(buffer, start, lineEnd));
+    }
+
+    /**
+     * Parse the current line as an entity line of the battle file
+     *
+     * @param battle The battle the entity is for (to check its position)
+     * @return The entity, or null if the line is not an entity line (an empty cell, or blank)
+     */
+    Entity parseEntity(Battle battle) {
+        return parseEntity(buffer, lineStart, lineEnd, battle);
+    }
+
+    /**
+     * Parse a line as an entity line of the battle file, row and column are given by getRow() and getColumn() after
+     *
+     * @param data   The bytes of the line
+     * @param start  Start of the line
+     * @param end    End of the line (without its line end)
+     * @param battle The battle the entity is for (to check its position)
+     * @return The entity, or null if the line is not an entity line (an empty cell, or blank)
+     */
+    Entity parseEntity(byte[] data, int start, int end, Battle battle) {
+        split(data, start, end);
+
+        // If there are more than two values in the row then it has an entity and we must process
+        if (fieldCount <= 2) {
+            return null;
+        }
+        // Verify validity of coordinates
+        row = parseInt(data, fieldStart[0], fieldEnd[0]);
+        column = parseInt(data, fieldStart[1], fieldEnd[1]);
+        if (!battle.valid(row, column)) {
+            throw new ArrayIndexOutOfBoundsException("Wrong input file! Position is outside of the map.");
+        }
+
+        // Verify validity of EntityType (independent of letter case)
+        if (equalsUpperCase(data, 2, WALL)) {
+            return Wall.getWall();
+        } else if (equalsUpperCase(data, 2, MAXIMAL)) {
+            // Check that maximal has all required entries
+            if (fieldCount < 8) {
+                throw new IllegalArgumentException("Wrong input file! Missing Maximal robot attributes.");
+            }
+            // Check that maximal has valid symbol
+            char symbol = symbol(data, "Wrong input file! Not a valid symbol for a Maximal.");
+            String name = string(data, fieldStart[4], fieldEnd[4]);
+            int health = parseInt(data, fieldStart[5], fieldEnd[5]);
+            int weaponStrength = parseInt(data, fieldStart[6], fieldEnd[6]);
+            int armourStrength = parseInt(data, fieldStart[7], fieldEnd[7]);
+            return new Maximal(symbol, name, health, weaponStrength, armourStrength);
+        } else if (equalsUpperCase(data, 2, PREDACON)) {
+            // Check that predacon has all required entries
+            if (fieldCount < 7) {
+                throw new IllegalArgumentException("Wrong input file! Missing Predacon robot attributes.");
+            }
+            // Check that predacon has valid symbol
+            char symbol = symbol(data, "Wrong input file! Not a valid symbol for a Predacon.");
+            String name = string(data, fieldStart[4], fieldEnd[4]);
+            int health = parseInt(data, fieldStart[5], fieldEnd[5]);
+            // Check that predacon has valid weapon
+            WeaponType weapon = weapon(data);
+            if (weapon == null) {
+                throw new IllegalArgumentException("Wrong input file! Not a valid weapon for a Predacon.");
+            }
+            return new PredaCon(symbol, name, health, weapon);
+        }
+        throw new IllegalArgumentException("Invalid entity type " + string(data, fieldStart[2], fieldEnd[2]).toUpperCase());
+    }
+
+    /**
+     * The row of the last entity parsed
+     *
+     * @return The row
+     */
+    int getRow() {
+        return row;
+    }
+
+    /**
+     * The column of the last entity parsed
+     *
+     * @return The column
+     */
+    int getColumn() {
+        return column;
+    }
+
+    /**
+     * Split a line into fields as line.trim().split(",") would (trailing empty fields are dropped)
+     *
+     * @param data  The bytes of the line
+     * @param start Start of the line
+     * @param end   End of the line
+     */
+    private void split(byte[] data, int start, int end) {
+        start = trimStart(data, start, end);
+        end = trimEnd(data, start, end);
+        if (start == end) {
+            // Splitting "" gives [""]
+            fieldCount = 1;
+            return;
+        }
+        int count = 0;
+        int lastNonEmpty = -1;
+        int begin = start;
+        for (int i = start; i <= end; i++) {
+            if (i == end || data[i] == ',') {
+                if (count < MAX_FIELDS) {
+                    fieldStart[count] = begin;
+                    fieldEnd[count] = i;
+                }
+                if (i > begin) {
+                    lastNonEmpty = count;
+                }
+                count++;
+                begin = i + 1;
+            }
+        }
+        fieldCount = lastNonEmpty + 1;
+    }
+
+    /**
+     * Does a field equal a keyword once upper cased
+     *
+     * @param data    The bytes of the line
+     * @param field   The field
+     * @param keyword The keyword (upper case ASCII)
+     * @return True if yes, false otherwise
+     */
+    private boolean equalsUpperCase(byte[] data, int field, byte[] keyword) {
+        int start = fieldStart[field];
+        int end = fieldEnd[field];
+        if (!isAscii(data, start, end)) {
+            return string(data, start, end).toUpperCase().equals(new String(keyword, StandardCharsets.US_ASCII));
+        }
+        if (end - start != keyword.length) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (upperCase(data[i]) != keyword[i - start]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * The symbol of a robot (field 3), which must be a single character
+     *
+     * @param data  The bytes of the line
+     * @param error The error message if it is not a single character
+     * @return The symbol
+     */
+    private char symbol(byte[] data, String error) {
+        int start = fieldStart[3];
+        int end = fieldEnd[3];
+        if (!isAscii(data, start, end)) {
+            String symbol = string(data, start, end);
+            if (symbol.length() != 1) {
+                throw new IllegalArgumentException(error);
+            }
+            return symbol.charAt(0);
+        }
+        if (end - start != 1) {
+            throw new IllegalArgumentException(error);
+        }
+        return (char) data[start];
+    }
+
+    /**
+     * The weapon of a PredaCon (field 6), C, L or T in either case
+     *
+     * @param data The bytes of the line
+     * @return The weapon type, null if not valid
+     */
+    private WeaponType weapon(byte[] data) {
+        int start = fieldStart[6];
+        int end = fieldEnd[6];
+        char weapon;
+        if (!isAscii(data, start, end)) {
+            String upper = string(data, start, end).toUpperCase();
+            if (upper.length() != 1) {
+                return null;
+            }
+            weapon = upper.charAt(0);
+        } else if (end - start != 1) {
+            return null;
+        } else {
+            weapon = (char) upperCase(data[start]);
+        }
+        if (weapon == 'C') {
+            return WeaponType.CLAWS;
+        } else if (weapon == 'L') {
+            return WeaponType.LASER;
+        } else if (weapon == 'T') {
+            return WeaponType.TEETH;
+        }
+        return null;
+    }
+
+    /**
+     * Parse an integer exactly as Integer.parseInt would (an optional sign, then decimal digits)
+     *
+     * @param data  The bytes
+     * @param start Start of the integer
+     * @param end   End of the integer
+     * @return The integer
+     * @throws NumberFormatException If the bytes are not an integer in range
+     */
+    static int parseInt(byte[] data, int start, int end) {
+        if (!isAscii(data, start, end)) {
+            return Integer.parseInt(string(data, start, end));
+        }
+        if (start == end) {
+            throw new NumberFormatException("Empty number");
+        }
+        boolean negative = false;
+        int i = start;
+        if (data[i] == '-' || data[i] == '+') {
+            negative = data[i] == '-';
+            i++;
+            if (i == end) {
+                throw new NumberFormatException("Sign without digits");
+            }
+        }
+        // Accumulate negatively, as Integer.parseInt does, so MIN_VALUE fits
+        int limit = negative ? Integer.MIN_VALUE : -Integer.MAX_VALUE;
+        int multiplyMinimum = limit / 10;
+        int result = 0;
+        for (; i < end; i++) {
+            int digit = data[i] - '0';
+            if (digit < 0 || digit > 9 || result < multiplyMinimum) {
+                throw new NumberFormatException("Not a number in range");
+            }
+            result *= 10;
+            if (result < limit + digit) {
+                throw new NumberFormatException("Not a number in range");
+            }
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Skip leading characters that trim() removes (everything up to and including space)
+     *
+     * @param data  The bytes
+     * @param start Start of the range
+     * @param end   End of the range
+     * @return The first byte not removed
+     */
+    private static int trimStart(byte[] data, int start, int end) {
+        while (start < end && (data[start] & 0xFF) <= ' ') {
+            start++;
+        }
+        return start;
+    }
+
+    /**
+     * Skip trailing characters that trim() removes (everything up to and including space)
+     *
+     * @param data  The bytes
+     * @param start Start of the range
+     * @param end   End of the range
+     * @return One past the last byte not removed
+     */
+    private static int trimEnd(byte[] data, int start, int end) {
+        while (end > start && (data[end - 1] & 0xFF) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Are all bytes of a range ASCII
+     *
+     * @param data  The bytes
+     * @param start Start of the range
+     * @param end   End of the range
+     * @return True if yes, false otherwise
+     */
+    private static boolean isAscii(byte[] data, int start, int end) {
+        for (int i = start; i < end; i++) {
+            if (data[i] < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Upper case of an ASCII letter (other bytes unchanged)
+     *
+     * @param b The byte
+     * @return The upper case byte
+     */
+    private static byte upperCase(byte b) {
+        return b >= 'a' && b <= 'z' ? (byte) (b - ('a' - 'A')) : b;
+    }
+
+    /**
+     * Decode a range of bytes as UTF-8
+     *
+     * @param data  The bytes
+     * @param start Start of the range
+     * @param end   End of the range
+     * @return The String
+     */
+    private static String string(byte[] data, int start, int end) {
+        return new String(data, start, end - start, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,120 @@
+package rw.util;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Locale;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * How a battle or log file is compressed, chosen by the extension of its name
+ * Files ending in .gz are gzip streams, files ending in .deflate are zlib (deflate) streams, anything else is plain.
+ * Compressed files are streamed through large buffers, so the file is read and written in big pieces, and are compressed
+ * at the fastest level.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+enum Compression {
+    NONE(""), GZIP(".gz"), DEFLATE(".deflate");
+
+    /**
+     * Size of the buffers between the file and the (de)compressor
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * The file name extension of this compression
+     */
+    private final String extension;
+
+    /**
+     * Constructor
+     *
+     * @param extension The file name extension of this compression
+     */
+    Compression(String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * The compression of a file, by the extension of its name (ignoring case)
+     *
+     * @param file The file
+     * @return The compression (NONE if the extension is not a compressed one)
+     */
+    static Compression of(File file) {
+        String name = file.getName().toLowerCase(Locale.ROOT);
+        for (Compression compression : values()) {
+            if (compression != NONE && name.endsWith(compression.extension)) {
+                return compression;
+            }
+        }
+        return NONE;
+    }
+
+    /**
+     * Open a file to read its contents (decompressed)
+     *
+     * @param file The file
+     * @return The contents of the file
+     * @throws IOException If the file cannot be opened
+     */
+    InputStream open(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            switch (this) {
+                case GZIP:
+                    return new GZIPInputStream(in, BUFFER_SIZE);
+                case DEFLATE:
+                    return new InflaterInputStream(new BufferedInputStream(in, BUFFER_SIZE));
+                default:
+                    return in;
+            }
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Create (or empty) a file to write its contents (compressed), closing the channel finishes the file
+     *
+     * @param file The file
+     * @return The channel to write the contents through
+     * @throws IOException If the file cannot be created
+     */
+    WritableByteChannel create(File file) throws IOException {
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        if (this == NONE) {
+            return channel;
+        }
+        OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_SIZE);
+        try {
+            //The fastest level, these files shrink well anyway as they are mostly repeated text
+            if (this == GZIP) {
+                return Channels.newChannel(new GZIPOutputStream(out, BUFFER_SIZE) {{
+                    def.setLevel(Deflater.BEST_SPEED);
+                }});
+            }
+            return Channels.newChannel(new DeflaterOutputStream(out) {{
+                def.setLevel(Deflater.BEST_SPEED);
+            }});
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+}
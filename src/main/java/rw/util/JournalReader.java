@@ -0,0 +1,201 @@
+package rw.util;
+
+import rw.battle.BattleObserver;
+import rw.enums.Direction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Replays a journal written by JournalWriter from any tick, without re-simulating the ticks before it
+ * The tick index says where each tick's records start, records are read through memory-mapped windows of the file
+ * (so journals larger than memory, or than one mapping, can be read)
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class JournalReader implements AutoCloseable {
+
+    /**
+     * Records in one mapped window of the file
+     */
+    private static final long WINDOW_RECORDS = (64L << 20) / JournalWriter.RECORD_SIZE;
+    /**
+     * Cached copy of Direction.values()
+     */
+    private static final Direction[] DIRECTIONS = Direction.values();
+
+    /**
+     * The journal file
+     */
+    private final FileChannel channel;
+    /**
+     * The number of records in the journal
+     */
+    private final long records;
+    /**
+     * The first tick in the journal
+     */
+    private final int firstTick;
+    /**
+     * The number of ticks in the journal
+     */
+    private final int ticks;
+    /**
+     * The number of the first record of each tick (mapped)
+     */
+    private final LongBuffer tickStarts;
+    /**
+     * The window of records currently mapped, -1 if none
+     */
+    private long window = -1;
+    /**
+     * The mapped records of the current window
+     */
+    private MappedByteBuffer windowRecords;
+
+    /**
+     * Open a journal
+     *
+     * @param file The journal file
+     */
+    public JournalReader(File file) {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+            ByteBuffer header = ByteBuffer.allocate(JournalWriter.HEADER_SIZE);
+            while (header.hasRemaining() && channel.read(header) >= 0) {
+                //Keep reading until the header is full or the file ends
+            }
+            header.flip();
+            if (header.remaining() < JournalWriter.HEADER_SIZE || header.getInt() != JournalWriter.MAGIC) {
+                throw new IllegalArgumentException("File " + file.getName() + " is not a battle journal!");
+            }
+            if (header.getInt() != JournalWriter.VERSION) {
+                throw new IllegalArgumentException("Journal " + file.getName() + " is of an unknown version!");
+            }
+            long indexOffset = header.getLong();
+            if (indexOffset == 0) {
+                throw new IllegalArgumentException("Journal " + file.getName() + " was not closed and has no tick index!");
+            }
+            records = (indexOffset - JournalWriter.HEADER_SIZE) / JournalWriter.RECORD_SIZE;
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, 8);
+            firstTick = index.getInt();
+            ticks = index.getInt();
+            tickStarts = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset + 8, 8L * ticks).asLongBuffer();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem reading journal " + file.getName(), e);
+        }
+    }
+
+    /**
+     * The first tick in the journal
+     *
+     * @return The first tick
+     */
+    public int getFirstTick() {
+        return firstTick;
+    }
+
+    /**
+     * The number of ticks in the journal
+     *
+     * @return The number of ticks
+     */
+    public int getTickCount() {
+        return ticks;
+    }
+
+    /**
+     * The number of records (moves, attacks and deaths) in the journal
+     *
+     * @return The number of records
+     */
+    public long getRecordCount() {
+        return records;
+    }
+
+    /**
+     * Tell an observer everything that happened in a range of ticks, in the order it happened
+     *
+     * @param from     The first tick to replay
+     * @param to       One past the last tick to replay
+     * @param observer The observer to tell
+     */
+    public void replay(int from, int to, BattleObserver observer) {
+        if (from < firstTick || to > firstTick + ticks || from > to) {
+            throw new IllegalArgumentException("Ticks " + from + " to " + (to - 1) + " are not in the journal (it has ticks "
+                    + firstTick + " to " + (firstTick + ticks - 1) + ")!");
+        }
+        for (int tick = from; tick < to; tick++) {
+            int i = tick - firstTick;
+            long end = i + 1 < ticks ? tickStarts.get(i + 1) : records;
+            observer.tickStarted(tick);
+            for (long record = tickStarts.get(i); record < end; record++) {
+                replay(record, observer);
+            }
+            observer.tickEnded(tick);
+        }
+    }
+
+    /**
+     * Tell an observer about one record
+     *
+     * @param record   The number of the record
+     * @param observer The observer to tell
+     */
+    private void replay(long record, BattleObserver observer) {
+        ByteBuffer records = map(record);
+        int position = (int) (record % WINDOW_RECORDS) * JournalWriter.RECORD_SIZE;
+        byte kind = records.get(position);
+        Direction d = DIRECTIONS[records.get(position + 1)];
+        int robot = records.getInt(position + 4);
+        switch (kind) {
+            case JournalWriter.MOVED -> observer.moved(robot, d);
+            case JournalWriter.BLOCKED -> observer.blocked(robot, d);
+            case JournalWriter.ATTACKED -> observer.attacked(robot, records.getInt(position + 8),
+                    d, records.getInt(position + 12), records.getInt(position + 16));
+            case JournalWriter.DIED -> observer.died(robot);
+            default -> throw new IllegalArgumentException("Journal record " + record + " is of an unknown kind " + kind + "!");
+        }
+    }
+
+    /**
+     * Map the window of the file holding a record (if not already mapped)
+     *
+     * @param record The number of the record
+     * @return The records of the window
+     */
+    private ByteBuffer map(long record) {
+        long needed = record / WINDOW_RECORDS;
+        if (needed != window) {
+            long first = needed * WINDOW_RECORDS;
+            long count = Math.min(WINDOW_RECORDS, records - first);
+            try {
+                windowRecords = channel.map(FileChannel.MapMode.READ_ONLY,
+                        JournalWriter.HEADER_SIZE + first * JournalWriter.RECORD_SIZE, count * JournalWriter.RECORD_SIZE);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Problem reading journal", e);
+            }
+            window = needed;
+        }
+        return windowRecords;
+    }
+
+    /**
+     * Close the journal file
+     */
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem closing journal", e);
+        }
+    }
+}
@@ -0,0 +1,210 @@
+package rw.util;
+
+import rw.battle.BattleObserver;
+import rw.enums.Direction;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Records what happens in a Battle (added with Battle.addObserver) as a compact binary journal that JournalReader can replay
+ * <p>
+ * Layout (big-endian):
+ * <ul>
+ * <li>Header: magic "RWJ1" (int), version (int), offset of the tick index (long, 0 until closed)</li>
+ * <li>Records of RECORD_SIZE bytes in the order they happened: kind (byte), direction ordinal (byte), unused (short),
+ * robot index (int), target robot index (int), damage (int), true damage (int)</li>
+ * <li>Tick index (written by close()): first tick (int), number of ticks (int), then the number of the first record of
+ * each tick (long per tick)</li>
+ * </ul>
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class JournalWriter implements BattleObserver, AutoCloseable {
+
+    /**
+     * "RWJ1" at the start of every journal
+     */
+    static final int MAGIC = 0x52574A31;
+    /**
+     * Version of the layout written
+     */
+    static final int VERSION = 1;
+    /**
+     * Bytes before the first record
+     */
+    static final int HEADER_SIZE = 16;
+    /**
+     * Bytes per record
+     */
+    static final int RECORD_SIZE = 20;
+    /**
+     * Record kind of a robot moving
+     */
+    static final byte MOVED = 0;
+    /**
+     * Record kind of a robot trying to move somewhere it could not
+     */
+    static final byte BLOCKED = 1;
+    /**
+     * Record kind of a robot attacking
+     */
+    static final byte ATTACKED = 2;
+    /**
+     * Record kind of a robot dying
+     */
+    static final byte DIED = 3;
+    /**
+     * Size of the buffer records are gathered in before being written to the file
+     */
+    private static final int BUFFER_SIZE = RECORD_SIZE * (1 << 15);
+
+    /**
+     * The journal file
+     */
+    private final FileChannel channel;
+    /**
+     * The buffer records are gathered in
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /**
+     * The number of records written
+     */
+    private long records;
+    /**
+     * The first tick journaled, -1 until a tick has started
+     */
+    private int firstTick = -1;
+    /**
+     * The number of ticks journaled
+     */
+    private int ticks;
+    /**
+     * The number of the first record of each tick
+     */
+    private long[] tickStarts = new long[1024];
+    /**
+     * Has close() been called
+     */
+    private boolean closed;
+
+    /**
+     * Create (or replace) a journal file
+     *
+     * @param file The journal file
+     */
+    public JournalWriter(File file) {
+        try {
+            channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem creating journal " + file.getName(), e);
+        }
+        buffer.putInt(MAGIC).putInt(VERSION).putLong(0);
+    }
+
+    @Override
+    public void tickStarted(int tick) {
+        if (firstTick == -1) {
+            firstTick = tick;
+        } else if (tick != firstTick + ticks) {
+            throw new IllegalArgumentException("Journal ticks must follow on from each other! Expected " + (firstTick + ticks) + " but was " + tick);
+        }
+        if (ticks == tickStarts.length) {
+            tickStarts = Arrays.copyOf(tickStarts, ticks * 2);
+        }
+        tickStarts[ticks++] = records;
+    }
+
+    @Override
+    public void moved(int robot, Direction d) {
+        add(MOVED, robot, d, -1, 0, 0);
+    }
+
+    @Override
+    public void blocked(int robot, Direction d) {
+        add(BLOCKED, robot, d, -1, 0, 0);
+    }
+
+    @Override
+    public void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+        add(ATTACKED, robot, d, target, damage, trueDamage);
+    }
+
+    @Override
+    public void died(int robot) {
+        add(DIED, robot, Direction.STAY, -1, 0, 0);
+    }
+
+    /**
+     * Add one record
+     *
+     * @param kind       The kind of record
+     * @param robot      The index of the acting robot
+     * @param d          The direction acted in
+     * @param target     The index of the attacked robot (-1 if not an attack)
+     * @param damage     The damage rolled
+     * @param trueDamage The damage done after armor
+     */
+    private void add(byte kind, int robot, Direction d, int target, int damage, int trueDamage) {
+        if (closed) {
+            throw new IllegalStateException("Journal has been closed!");
+        }
+        if (buffer.remaining() < RECORD_SIZE) {
+            flush();
+        }
+        buffer.put(kind).put((byte) d.ordinal()).putShort((short) 0)
+                .putInt(robot).putInt(target).putInt(damage).putInt(trueDamage);
+        records++;
+    }
+
+    /**
+     * Write the buffer to the file and empty it
+     */
+    private void flush() {
+        buffer.flip();
+        try {
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem writing journal", e);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Write the remaining records and the tick index, and close the file
+     * Calling this again does nothing
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        long indexOffset = HEADER_SIZE + records * RECORD_SIZE;
+        try (channel) {
+            flush();
+            ByteBuffer index = ByteBuffer.allocate(8 + 8 * ticks);
+            index.putInt(Math.max(firstTick, 0)).putInt(ticks);
+            for (int tick = 0; tick < ticks; tick++) {
+                index.putLong(tickStarts[tick]);
+            }
+            index.flip();
+            while (index.hasRemaining()) {
+                channel.write(index);
+            }
+            //Only now is the journal complete
+            ByteBuffer offset = ByteBuffer.allocate(8).putLong(indexOffset).flip();
+            channel.write(offset, 8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem writing journal", e);
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package rw.util;
+
+/**
+ * The linear congruential generator of java.util.Random, reproduced number for number
+ * Unlike java.util.Random the seed is a plain field, so there is no atomic update on every call and the state can be saved.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class LcgRandom implements RandomSource {
+
+    /**
+     * Multiplier of the generator (as java.util.Random)
+     */
+    private static final long MULTIPLIER = 0x5DEECE66DL;
+    /**
+     * Addend of the generator (as java.util.Random)
+     */
+    private static final long ADDEND = 0xBL;
+    /**
+     * The generator works on 48 bits
+     */
+    private static final long MASK = (1L << 48) - 1;
+
+    /**
+     * The current 48 bit seed
+     */
+    private long seed;
+
+    /**
+     * A new generator giving the same numbers as new java.util.Random(seed)
+     *
+     * @param seed The seed
+     */
+    public LcgRandom(long seed) {
+        this.seed = (seed ^ MULTIPLIER) & MASK;
+    }
+
+    /**
+     * Advance the generator and get the next random bits
+     *
+     * @param bits The number of bits wanted (up to 32)
+     * @return The random bits
+     */
+    private int next(int bits) {
+        seed = (seed * MULTIPLIER + ADDEND) & MASK;
+        return (int) (seed >>> (48 - bits));
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive!");
+        }
+        int r = next(31);
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            //Power of two, use the high bits
+            r = (int) ((bound * (long) r) >> 31);
+        } else {
+            //Reject values from the incomplete last range so every result is equally likely
+            for (int u = r; u - (r = u % bound) + m < 0; u = next(31)) {
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public String getName() {
+        return "lcg";
+    }
+
+    @Override
+    public long getState() {
+        return seed;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.seed = state & MASK;
+    }
+}
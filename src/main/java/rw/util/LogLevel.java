@@ -0,0 +1,12 @@
+package rw.util;
+
+/**
+ * How important a logged message is, messages below the level chosen to log are discarded
+ * OFF is only used to choose to log nothing
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public enum LogLevel {
+    DEBUG, INFO, WARN, ERROR, OFF
+}
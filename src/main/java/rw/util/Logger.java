@@ -1,11 +1,23 @@
 package rw.util;
 
 import java.io.File;
-import java.io.FileNotFoundException;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Class to handle logging information out to a log file as program operates
+ * Entries are handed to a background writer thread through a bounded queue (callers only wait if the queue is full),
+ * the writer gathers them into a large buffer that is written to the file when full or every flush interval.
+ * Call close() to write everything still queued, a shutdown hook does this if the program exits first.
+ * Log files named with a .gz or .deflate extension are compressed by the writer thread (see Compression), such a file
+ * is only complete once the logger is closed.
  *
  * @author Jonathan Hudson
  * @version 1.0
@@ -13,34 +25,230 @@ import java.io.PrintWriter;
 public final class Logger {
 
     /**
-     * The PrintWriter to record log entries
+     * Milliseconds between writes of the buffer to the file (unless given)
      */
-    private PrintWriter printWriter;
+    public static final long DEFAULT_FLUSH_MILLIS = 200;
+    /**
+     * Entries that can wait in the queue before log(obj) has to wait for the writer
+     */
+    private static final int QUEUE_CAPACITY = 8192;
+    /**
+     * Size of the buffer entries are gathered in before being written to the file
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+    /**
+     * Queued to tell the writer to write everything and stop (compared by identity)
+     */
+    @SuppressWarnings("StringOperationCanBeSimplified")
+    private static final String CLOSE = new String("CLOSE");
 
     /**
-     * Constructs a logger (PrintWriter)
+     * The entries waiting to be written
+     */
+    private final BlockingQueue<String> queue = new ArrayBlockingQueue<>(QUEUE_CAPACITY);
+    /**
+     * The buffer entries are gathered in (only used by the writer thread)
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    /**
+     * Nanoseconds between writes of the buffer to the file
+     */
+    private final long flushNanos;
+    /**
+     * The thread writing to the log file
+     */
+    private final Thread writer;
+    /**
+     * The shutdown hook that closes the logger if the program exits first
+     */
+    private final Thread shutdownHook;
+    /**
+     * The log file
+     */
+    private WritableByteChannel channel;
+    /**
+     * Has close() been called
+     */
+    private volatile boolean closed;
+    /**
+     * Has writing to the log file failed (later entries are discarded)
+     */
+    private boolean failed;
+
+    /**
+     * Constructs a logger writing every DEFAULT_FLUSH_MILLIS
      * Prints error message to System Error and exits if log file cannot be found
      *
      * @param fileLog The log file
      */
     public Logger(File fileLog) {
+        this(fileLog, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Constructs a logger (and starts its writer thread)
+     * Prints error message to System Error and exits if log file cannot be found
+     *
+     * @param fileLog     The log file
+     * @param flushMillis The longest time in milliseconds an entry waits in the buffer before being written to the file
+     */
+    public Logger(File fileLog, long flushMillis) {
+        if (flushMillis <= 0) {
+            throw new IllegalArgumentException("Flush interval must be positive!");
+        }
         try {
-            printWriter = new PrintWriter(fileLog);
-        } catch (FileNotFoundException e) {
+            channel = Compression.of(fileLog).create(fileLog);
+        } catch (IOException e) {
             System.err.printf("Unable to open log file %s!%n", fileLog.getAbsoluteFile());
             System.exit(1);
         }
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.writer = new Thread(this::write, "logger-" + fileLog.getName());
+        this.writer.setDaemon(true);
+        this.writer.start();
+        this.shutdownHook = new Thread(this::close);
+        Runtime.getRuntime().addShutdownHook(shutdownHook);
     }
 
     /**
-     * Stores the given Object into the log file (flushes immediately after)
-     * The object is converted to a string when added to the file
+     * Stores the given Object into the log file (written by the writer thread shortly after)
+     * The object is converted to a string when this is called
+     * Anything logged once the logger is closed is discarded (the program may still be running while it shuts down)
      *
      * @param obj The object to store in the log file (note, a new line is added on the end)
      */
     public void log(Object obj) {
-        printWriter.println(obj);
-        printWriter.flush();
+        if (closed) {
+            return;
+        }
+        String entry = String.valueOf(obj);
+        try {
+            //Wait while the queue is full, unless the logger is closed meanwhile (the writer may have stopped)
+            while (!queue.offer(entry, flushNanos, TimeUnit.NANOSECONDS)) {
+                if (closed) {
+                    return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
+    /**
+     * Write everything logged so far to the file, stop the writer thread and close the file
+     * Calling this again does nothing
+     */
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+        }
+        if (Thread.currentThread() != shutdownHook) {
+            try {
+                Runtime.getRuntime().removeShutdownHook(shutdownHook);
+            } catch (IllegalStateException e) {
+                //Already shutting down, the hook is running or has run
+            }
+        }
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(CLOSE);
+                writer.join();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * The writer thread, takes entries from the queue into the buffer and writes the buffer to the file when it is full,
+     * every flush interval, and when closing
+     */
+    private void write() {
+        List<String> batch = new ArrayList<>(QUEUE_CAPACITY);
+        byte[] newLine = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+        long nextFlush = System.nanoTime() + flushNanos;
+        boolean closing = false;
+        while (!closing) {
+            try {
+                String first = queue.poll(Math.max(0, nextFlush - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch);
+                }
+            } catch (InterruptedException e) {
+                //Only close() stops the writer
+            }
+            for (String entry : batch) {
+                if (entry == CLOSE) {
+                    closing = true;
+                } else {
+                    append(entry.getBytes(StandardCharsets.UTF_8));
+                    append(newLine);
+                }
+            }
+            batch.clear();
+            if (closing || System.nanoTime() - nextFlush >= 0) {
+                flush();
+                nextFlush = System.nanoTime() + flushNanos;
+            }
+        }
+        try {
+            channel.close();
+        } catch (IOException e) {
+            System.err.println("Unable to close log file!");
+        }
+    }
+
+    /**
+     * Add bytes to the buffer, writing the buffer to the file first if they do not fit
+     *
+     * @param bytes The bytes to add
+     */
+    private void append(byte[] bytes) {
+        if (bytes.length > buffer.remaining()) {
+            flush();
+            if (bytes.length > buffer.capacity()) {
+                writeFully(ByteBuffer.wrap(bytes));
+                return;
+            }
+        }
+        buffer.put(bytes);
+    }
+
+    /**
+     * Write the buffer to the file and empty it
+     */
+    private void flush() {
+        buffer.flip();
+        writeFully(buffer);
+        buffer.clear();
+    }
+
+    /**
+     * Write all remaining bytes to the file
+     * Prints error message to System Error the first time writing fails, after which entries are discarded
+     *
+     * @param bytes The bytes to write
+     */
+    private void writeFully(ByteBuffer bytes) {
+        if (failed) {
+            return;
+        }
+        try {
+            while (bytes.hasRemaining()) {
+                channel.write(bytes);
+            }
+        } catch (IOException e) {
+            failed = true;
+            System.err.printf("Unable to write log file: %s%n", e.getMessage());
+        }
+    }
 }
@@ -0,0 +1,76 @@
+package rw.util;
+
+/**
+ * A source of random numbers owned by one simulation (never shared between threads)
+ * The whole state of a source is a single long so that it can be saved and restored.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public interface RandomSource {
+
+    /**
+     * Get a random integer from 0 (inclusive) to bound (exclusive)
+     *
+     * @param bound The upper bound (exclusive), must be positive
+     * @return The random integer
+     */
+    int nextInt(int bound);
+
+    /**
+     * The name of this kind of source, as given to of(name, seed)
+     *
+     * @return The name of the source
+     */
+    String getName();
+
+    /**
+     * Get the current state of the source
+     *
+     * @return The state, giving it to setState(long) later repeats the numbers that followed
+     */
+    long getState();
+
+    /**
+     * Return the source to an earlier state
+     *
+     * @param state A state from getState()
+     */
+    void setState(long state);
+
+    /**
+     * A source giving exactly the numbers java.util.Random(seed) gives (without its thread-safe CAS on every call)
+     *
+     * @param seed The seed
+     * @return A new source
+     */
+    static RandomSource lcg(long seed) {
+        return new LcgRandom(seed);
+    }
+
+    /**
+     * A splittable, counter based SplitMix64 source (each number is a hash of the seed and a counter)
+     *
+     * @param seed The seed
+     * @return A new source
+     */
+    static RandomSource splitMix(long seed) {
+        return new SplitMixRandom(seed);
+    }
+
+    /**
+     * Look up a kind of source by name
+     *
+     * @param name "lcg" or "splitmix" (ignoring case)
+     * @param seed The seed
+     * @return A new source of that kind
+     */
+    static RandomSource of(String name, long seed) {
+        if (name.equalsIgnoreCase("lcg")) {
+            return lcg(seed);
+        } else if (name.equalsIgnoreCase("splitmix")) {
+            return splitMix(seed);
+        }
+        throw new IllegalArgumentException("Random source " + name + " is not valid (lcg/splitmix)!");
+    }
+}
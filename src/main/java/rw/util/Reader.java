@@ -1,15 +1,29 @@
 package rw.util;
 
 import rw.battle.*;
-import rw.enums.Symbol;
-import rw.enums.WeaponType;
+import rw.jfr.LoadBattleEvent;
 
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * The Reader class provides static methods for reading data from a file and constructing a Battle object.
  * It reads a text file containing information about entities and their attributes, and initializes a Battle
  * based on the data read from the file.
+ * Files in the SPARSE format start with a SPARSE line and only list the occupied cells, files are read one line at a time
+ * so neither format is ever held in memory. Lines are parsed straight from bytes (see BattleParser).
+ * Large files are split into chunks at line ends that are parsed on several threads, the entities of every chunk are
+ * then added to the battle in file order (so robots take their turns in the same order as when read on one thread).
+ * Files named with a .gz or .deflate extension are decompressed as they are read (see Compression), these are always
+ * read on one thread. Binary maps (see BinaryMap) are recognised and loaded as well.
  *
  * @author Paula Amaya
  * @email paula.amaya@ucalgary.ca
@@ -18,25 +32,116 @@ import java.io.*;
  */
 public final class Reader {
 
+    /**
+     * First line of a file in the SPARSE format (dimensions follow as usual, then only the occupied cells)
+     */
+    public static final String SPARSE_HEADER = "SPARSE";
+
+    /**
+     * Files with at least this many bytes of entity lines are parsed on several threads.
+     */
+    private static final long PARALLEL_THRESHOLD = 8L << 20;
+
+    /**
+     * Largest chunk of a file parsed as one piece (chunks are held in memory while they are parsed).
+     */
+    private static final int MAX_CHUNK_SIZE = 32 << 20;
+
+    /**
+     * Chunks made per thread, so threads that finish early can take on more.
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * Size of the window read when looking for the end of a line.
+     */
+    private static final int SEARCH_SIZE = 1 << 12;
+
     /**
      * Reads data from a given file and constructs a Battle object based on the information read.
+     * Large files are parsed on as many threads as there are processors.
      * @param file File to read from.
      * @return a Battle object initialized with data read from the file.
      * @throws RuntimeException if an error occurs while reading the file.
      */
     public static Battle loadBattle(File file) {
+        return loadBattle(file, Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Reads data from a given file and constructs a Battle object based on the information read.
+     * @param file File to read from.
+     * @param threads The most threads to parse a large file on (1 reads every file one line at a time).
+     * @return a Battle object initialized with data read from the file.
+     * @throws RuntimeException if an error occurs while reading the file.
+     */
+    public static Battle loadBattle(File file, int threads) {
+        return loadBattle(file, threads, PARALLEL_THRESHOLD);
+    }
+
+    /**
+     * Reads data from a given file and constructs a Battle object based on the information read.
+     * @param file File to read from.
+     * @param threads The most threads to parse a large file on (1 reads every file one line at a time).
+     * @param parallelThreshold Files with at least this many bytes of entity lines are parsed on several threads.
+     * @return a Battle object initialized with data read from the file.
+     * @throws RuntimeException if an error occurs while reading the file.
+     */
+    static Battle loadBattle(File file, int threads, long parallelThreshold) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive!");
+        }
+        LoadBattleEvent event = new LoadBattleEvent();
+        event.begin();
+        Battle battle = read(file, threads, parallelThreshold);
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = file.getPath();
+            event.bytes = file.length();
+            event.threads = threads;
+            event.rows = battle.getRows();
+            event.columns = battle.getColumns();
+            event.robots = battle.getRobotCount();
+            event.commit();
+        }
+        return battle;
+    }
+
+    /**
+     * Reads data from a given file and constructs a Battle object based on the information read.
+     * @param file File to read from.
+     * @param threads The most threads to parse a large file on (1 reads every file one line at a time).
+     * @param parallelThreshold Files with at least this many bytes of entity lines are parsed on several threads.
+     * @return a Battle object initialized with data read from the file.
+     * @throws RuntimeException if an error occurs while reading the file.
+     */
+    private static Battle read(File file, int threads, long parallelThreshold) {
+        // Binary maps are loaded directly into the battle
+        if (BinaryMap.isBinaryMap(file)) {
+            return BinaryMap.read(file);
+        }
         Battle battle;
+        Compression compression = Compression.of(file);
 
-        try(BufferedReader reader = new BufferedReader(new FileReader(file));){
+        try(InputStream in = compression.open(file)){
+            BattleParser parser = new BattleParser();
 
             // BATTLE DIMENSIONS
-            // Read first line as rows
-            String line = reader.readLine();
-            int rows = Integer.parseInt(line.trim());
+            // Read first line as rows (after the SPARSE line if there is one)
+            boolean line = parser.nextLine(in);
+            if (line && parser.lineEqualsIgnoreCase(SPARSE_HEADER)) {
+                line = parser.nextLine(in);
+            }
+            if (!line) {
+                throw new NumberFormatException("Missing rows");
+            }
+            int rows = parser.lineInt();
 
             // Read second line as columns
-            line = reader.readLine();
-            int columns = Integer.parseInt(line.trim());
+            if (!parser.nextLine(in)) {
+                throw new NumberFormatException("Missing columns");
+            }
+            int columns = parser.lineInt();
             // Verify rows and columns are positive
             if(rows < 0 || columns < 0){
                 throw new ArrayIndexOutOfBoundsException("Wrong input file! World cannot have negative dimensions");
@@ -44,85 +149,21 @@ public final class Reader {
             battle = new Battle(rows, columns);
 
             // ENTITY INFORMATION
-            line = reader.readLine();
-            while (line != null){
-
-                // Extract values separated by spaces into an array.
-                String[] values = line.trim().split(",");
-
-                // If there are more than two values in the row then it has an entity and we must process
-                if(values.length > 2){
-
-                    // Verify validity of coordinates
-                    int row = Integer.parseInt(values[0]);
-                    int col = Integer.parseInt(values[1]);
-                    if(!battle.valid(row, col)){
-                        throw new ArrayIndexOutOfBoundsException("Wrong input file! Position is outside of the map.");
-                    }
-
-                    // Verify validity of EntityType (independent of letter case)
-                    String entityType = values[2].toUpperCase();
-                    if (!isValidEntityType(entityType)){
-                        throw new IllegalArgumentException("Invalid entity type " + entityType);
-                    }
-
-                    // Process each entity type differently
-                    switch (entityType){
-                        case "WALL":
-                            battle.addEntity(row, col, Wall.getWall());
-                            break;
-                        case "MAXIMAL":
-                            // Check that maximal has all required entries
-                            if(values.length < 8){
-                                throw new IllegalArgumentException("Wrong input file! Missing Maximal robot attributes.");
-                            }
-                            // Check that maximal has valid symbol
-                            if(values[3].length() != 1){
-                                throw new IllegalArgumentException("Wrong input file! Not a valid symbol for a Maximal.");
-                            }
-                            // Add maximal robot according to read data
-                            char symbol = values[3].charAt(0);
-                            String name = values[4];
-                            int health = Integer.parseInt(values[5]);
-                            int weaponStrength = Integer.parseInt(values[6]);
-                            int armourStrength = Integer.parseInt(values[7]);
-                            battle.addEntity(row, col, new Maximal(symbol, name, health, weaponStrength, armourStrength));
-                            break;
-                        default:
-                            // Check that predacon has all required entries
-                            if(values.length < 7){
-                                throw new IllegalArgumentException("Wrong input file! Missing Predacon robot attributes.");
-                            }
-                            // Check that predacon has valid symbol
-                            if(values[3].length() != 1){
-                                throw new IllegalArgumentException("Wrong input file! Not a valid symbol for a Predacon.");
-                            }
-                            char s = values[3].charAt(0);
-                            String n = values[4];
-                            int h = Integer.parseInt(values[5]);
-                            String weapon = values[6].toUpperCase();
-                            // Check that predacon has valid weapon
-                            if(!isValidWeapon(weapon)){
-                                throw new IllegalArgumentException("Wrong input file! Not a valid weapon for a Predacon.");
-                            }
-                            // Add predacon according to read data
-                            PredaCon p;
-                            if (weapon.equals("C")){
-                                p = new PredaCon(s, n, h, WeaponType.CLAWS);
-                            } else if (weapon.equals("L")) {
-                                p = new PredaCon(s, n, h, WeaponType.LASER);
-                            } else {
-                                p = new PredaCon(s, n, h, WeaponType.TEETH);
-                            }
-                            battle.addEntity(row, col, p);
-                            break;
-                    }
-
-
+            // Large files are split into chunks for several threads, starting where the dimensions end
+            if (threads > 1 && compression == Compression.NONE) {
+                FileChannel channel = ((FileInputStream) in).getChannel();
+                long start = parser.getOffset();
+                if (channel.size() - start >= parallelThreshold) {
+                    loadChunks(channel, start, battle, threads);
+                    return battle;
+                }
+            }
+            // Lines with more than two values have an entity (empty cells are only listed in the dense format, and skipped)
+            while (parser.nextLine(in)){
+                Entity entity = parser.parseEntity(battle);
+                if (entity != null) {
+                    battle.addEntity(parser.getRow(), parser.getColumn(), entity);
                 }
-
-                // Move to next line
-                line = reader.readLine();
             }
 
         } catch (IOException e){
@@ -135,20 +176,186 @@ public final class Reader {
     }
 
     /**
-     * Takes in a string a determines if it is a valid symbol for a Predacon weapon.
-     * @param weapon String representing a potential Predacon weapon.
-     * @return true iff weapon is a valid symbol for a Predacon weapon.
+     * Parses the entity lines of a file in chunks on several threads and adds the entities to the battle in file order.
+     * If lines have errors, the error of the first one in the file is thrown (as when read one line at a time).
+     * @param channel File to read from.
+     * @param start Where the entity lines start in the file.
+     * @param battle Battle to add the entities to.
+     * @param threads Number of threads to parse on.
+     * @throws IOException if the file cannot be read.
      */
-    private static boolean isValidWeapon(String weapon) {
-        return weapon.equals("C") || weapon.equals("L") || weapon.equals("T");
+    private static void loadChunks(FileChannel channel, long start, Battle battle, int threads) throws IOException {
+        long[] bounds = chunkBounds(channel, start, threads);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<Chunk>> futures = new ArrayList<>(bounds.length - 1);
+            for (int i = 0; i + 1 < bounds.length; i++) {
+                long from = bounds[i];
+                long to = bounds[i + 1];
+                futures.add(pool.submit(() -> parseChunk(channel, from, to, battle)));
+            }
+            // Chunks are added as soon as they (and all chunks before them) are parsed
+            for (Future<Chunk> future : futures) {
+                Chunk chunk = future.get();
+                for (int i = 0; i < chunk.count; i++) {
+                    battle.addEntity(chunk.rows[i], chunk.columns[i], chunk.entities[i]);
+                }
+                if (chunk.error != null) {
+                    throw chunk.error;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while reading file");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to parse file: " + e.getCause(), e.getCause());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * Splits the rest of a file into chunks that start and end at line ends.
+     * @param channel File to split.
+     * @param start Where the first chunk starts.
+     * @param threads Number of threads the chunks are for.
+     * @return Where every chunk starts, then the end of the file.
+     * @throws IOException if the file cannot be read.
+     */
+    private static long[] chunkBounds(FileChannel channel, long start, int threads) throws IOException {
+        long size = channel.size();
+        long length = size - start;
+        long chunks = Math.max((long) threads * CHUNKS_PER_THREAD, (length + MAX_CHUNK_SIZE - 1) / MAX_CHUNK_SIZE);
+        long[] bounds = new long[(int) chunks + 1];
+        int count = 0;
+        bounds[count++] = start;
+        ByteBuffer window = ByteBuffer.allocate(SEARCH_SIZE);
+        for (long i = 1; i < chunks; i++) {
+            long target = Math.max(start + length * i / chunks, bounds[count - 1]);
+            long bound = lineEnd(channel, target, window);
+            if (bound >= size) {
+                break;
+            }
+            if (bound > bounds[count - 1]) {
+                bounds[count++] = bound;
+            }
+        }
+        bounds[count++] = size;
+        return Arrays.copyOf(bounds, count);
     }
 
     /**
-     * Takes in a String in uppercase and determines if it is a valid Entity type.
-     * @param type String representing a potential Entity type.
-     * @return true iff type is a valid Entity.
+     * Finds the start of the line after a place in a file (a line feed after a carriage return is left as a blank line).
+     * @param channel File to search.
+     * @param from Where to start looking.
+     * @param window Buffer to read the file through.
+     * @return Just past the first \n or \r at or after from, or the size of the file if there is none.
+     * @throws IOException if the file cannot be read.
      */
-    private static boolean isValidEntityType(String type){
-        return type.equals("WALL") || type.equals("PREDACON") || type.equals("MAXIMAL");
+    private static long lineEnd(FileChannel channel, long from, ByteBuffer window) throws IOException {
+        long position = from;
+        while (true) {
+            window.clear();
+            int read = channel.read(window, position);
+            if (read < 0) {
+                return channel.size();
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = window.get(i);
+                if (b == '\n' || b == '\r') {
+                    return position + i + 1;
+                }
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Reads a chunk of a file and parses its lines (every \n and \r ends a line, the extra blank lines are skipped).
+     * Parsing stops at the first line with an error, which is kept with the entities before it.
+     * @param channel File to read from.
+     * @param from Start of the chunk.
+     * @param to End of the chunk.
+     * @param battle Battle the entities are for (only used to check their positions).
+     * @return The entities of the chunk in file order.
+     * @throws IOException if the file cannot be read.
+     */
+    private static Chunk parseChunk(FileChannel channel, long from, long to, Battle battle) throws IOException {
+        byte[] data = new byte[Math.toIntExact(to - from)];
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, from + buffer.position()) < 0) {
+                throw new EOFException("File changed while being read");
+            }
+        }
+        BattleParser parser = new BattleParser();
+        Chunk chunk = new Chunk();
+        try {
+            int lineStart = 0;
+            for (int i = 0; i <= data.length; i++) {
+                if (i == data.length || data[i] == '\n' || data[i] == '\r') {
+                    Entity entity = i > lineStart ? parser.parseEntity(data, lineStart, i, battle) : null;
+                    if (entity != null) {
+                        chunk.add(parser.getRow(), parser.getColumn(), entity);
+                    }
+                    lineStart = i + 1;
+                }
+            }
+        } catch (RuntimeException e) {
+            chunk.error = e;
+        }
+        return chunk;
+    }
+
+    /**
+     * The entities parsed from one chunk of a file, in file order.
+     */
+    private static final class Chunk {
+
+        /**
+         * Row of each entity.
+         */
+        private int[] rows = new int[16];
+
+        /**
+         * Column of each entity.
+         */
+        private int[] columns = new int[16];
+
+        /**
+         * The entities.
+         */
+        private Entity[] entities = new Entity[16];
+
+        /**
+         * Number of entities.
+         */
+        private int count;
+
+        /**
+         * Error of the first line that could not be parsed (null if every line was parsed).
+         */
+        private RuntimeException error;
+
+        /**
+         * Adds an entity after the ones already in the chunk.
+         * @param row Row of the entity.
+         * @param column Column of the entity.
+         * @param entity The entity.
+         */
+        private void add(int row, int column, Entity entity) {
+            if (count == entities.length) {
+                rows = Arrays.copyOf(rows, count * 2);
+                columns = Arrays.copyOf(columns, count * 2);
+                entities = Arrays.copyOf(entities, count * 2);
+            }
+            rows[count] = row;
+            columns[count] = column;
+            entities[count] = entity;
+            count++;
+        }
     }
 }
@@ -0,0 +1,453 @@
+package rw.util;
+
+import rw.enums.WeaponType;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+
+/**
+ * Generates battle files (in the format Reader loads) from a seed, one row at a time straight to the file, so maps of any
+ * size can be made without a Battle in memory. The same settings and seed always give the same file.
+ * <ul>
+ * <li>Walls are scattered at random, or grown into caves by smoothing them with a cellular automaton (a cell becomes wall
+ * with 5 or more wall neighbours, stays wall with 4 or more, outside the map counts as wall). Only the last few rows of
+ * each smoothing step are kept.</li>
+ * <li>Robots are placed at random on the floor, each is a Maximal or a PredaCon by a smooth random field over the map, so
+ * with clustering the factions gather in separate regions of about the cluster size.</li>
+ * <li>Health, weapon strength and armor strength are uniform in their ranges, PredaCon weapons are uniform.</li>
+ * </ul>
+ * Every row has its own random streams (see SplitMixRandom.forKey), so rows do not depend on each other's draws.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class ScenarioGenerator {
+
+    /**
+     * Key of the random streams of the initial walls (the row is added)
+     */
+    private static final long WALL_KEY = 1L << 32;
+    /**
+     * Key of the random streams of the robots (the row is added)
+     */
+    private static final long ROBOT_KEY = 2L << 32;
+    /**
+     * Key of the corner values of the faction field
+     */
+    private static final long FIELD_KEY = 3L << 32;
+    /**
+     * Symbol of every generated Maximal
+     */
+    private static final char MAXIMAL_SYMBOL = 'M';
+    /**
+     * Symbol of every generated PredaCon
+     */
+    private static final char PREDACON_SYMBOL = 'P';
+    /**
+     * Cached copy of WeaponType.values()
+     */
+    private static final WeaponType[] WEAPON_TYPES = WeaponType.values();
+
+    /**
+     * The rows of the map
+     */
+    private final int rows;
+    /**
+     * The columns of the map
+     */
+    private final int columns;
+    /**
+     * The seed of every random choice
+     */
+    private final long seed;
+    /**
+     * The fraction of cells that start as walls
+     */
+    private double wallDensity = 0.1;
+    /**
+     * The number of cellular automaton steps that smooth the walls into caves (0 leaves them scattered)
+     */
+    private int caveSteps = 0;
+    /**
+     * The fraction of floor cells holding a robot
+     */
+    private double robotDensity = 0.01;
+    /**
+     * How strongly the factions gather in their own regions (0 is a fair coin for every robot, 1 is fully separate)
+     */
+    private double clustering = 0;
+    /**
+     * The size in cells of the regions of the faction field
+     */
+    private int clusterSize = 32;
+    /**
+     * The range of robot health
+     */
+    private int minHealth = 5, maxHealth = 20;
+    /**
+     * The range of Maximal weapon strength
+     */
+    private int minWeapon = 1, maxWeapon = 5;
+    /**
+     * The range of Maximal armor strength
+     */
+    private int minArmor = 0, maxArmor = 3;
+    /**
+     * Write the SPARSE format (only occupied cells) rather than a line for every cell
+     */
+    private boolean sparse = true;
+
+    /**
+     * A generator of maps of the given size (walls at 10%, robots on 1% of the floor, no caves or clustering,
+     * health 5-20, weapon 1-5 and armor 0-3, SPARSE format)
+     *
+     * @param rows    The rows of the map
+     * @param columns The columns of the map
+     * @param seed    The seed of every random choice
+     */
+    public ScenarioGenerator(int rows, int columns, long seed) {
+        if (rows < 0 || columns < 0) {
+            throw new IllegalArgumentException("Map cannot have negative dimensions!");
+        }
+        this.rows = rows;
+        this.columns = columns;
+        this.seed = seed;
+    }
+
+    /**
+     * Set the fraction of cells that start as walls
+     *
+     * @param wallDensity The fraction (0 to 1)
+     */
+    public void setWallDensity(double wallDensity) {
+        this.wallDensity = fraction(wallDensity, "Wall density");
+    }
+
+    /**
+     * Set the number of cellular automaton steps that smooth the walls into caves (a wall density near 0.45 makes caves)
+     *
+     * @param caveSteps The number of steps (0 leaves the walls scattered)
+     */
+    public void setCaveSteps(int caveSteps) {
+        if (caveSteps < 0) {
+            throw new IllegalArgumentException("Cave steps cannot be negative!");
+        }
+        this.caveSteps = caveSteps;
+    }
+
+    /**
+     * Set the fraction of floor cells holding a robot
+     *
+     * @param robotDensity The fraction (0 to 1)
+     */
+    public void setRobotDensity(double robotDensity) {
+        this.robotDensity = fraction(robotDensity, "Robot density");
+    }
+
+    /**
+     * Set how strongly the factions gather in their own regions
+     *
+     * @param clustering 0 for a fair coin for every robot, up to 1 for fully separate regions
+     */
+    public void setClustering(double clustering) {
+        this.clustering = fraction(clustering, "Clustering");
+    }
+
+    /**
+     * Set the size of the faction regions
+     *
+     * @param clusterSize The size in cells (positive)
+     */
+    public void setClusterSize(int clusterSize) {
+        if (clusterSize <= 0) {
+            throw new IllegalArgumentException("Cluster size must be positive!");
+        }
+        this.clusterSize = clusterSize;
+    }
+
+    /**
+     * Set the range of robot health
+     *
+     * @param min The least health (0 or more, robots with 0 start dead)
+     * @param max The most health
+     */
+    public void setHealth(int min, int max) {
+        checkRange(min, max, 0, "Health");
+        this.minHealth = min;
+        this.maxHealth = max;
+    }
+
+    /**
+     * Set the range of Maximal weapon strength
+     *
+     * @param min The least strength (1 or more)
+     * @param max The most strength
+     */
+    public void setWeapon(int min, int max) {
+        checkRange(min, max, 1, "Weapon strength");
+        this.minWeapon = min;
+        this.maxWeapon = max;
+    }
+
+    /**
+     * Set the range of Maximal armor strength
+     *
+     * @param min The least strength (0 or more)
+     * @param max The most strength
+     */
+    public void setArmor(int min, int max) {
+        checkRange(min, max, 0, "Armor strength");
+        this.minArmor = min;
+        this.maxArmor = max;
+    }
+
+    /**
+     * Set the format written
+     *
+     * @param sparse True for the SPARSE format (only occupied cells), false for a line for every cell
+     */
+    public void setSparse(boolean sparse) {
+        this.sparse = sparse;
+    }
+
+    /**
+     * Generate the map into a file (compressed if named so, see Writer)
+     *
+     * @param file The file to write
+     * @return The number of robots written
+     */
+    public long write(File file) {
+        try {
+            Writer writer = Writer.open(file);
+            try {
+                return write(writer);
+            } finally {
+                writer.close();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Problem writing battle to file " + file.getName(), e);
+        }
+    }
+
+    /**
+     * Generate the map, row by row
+     *
+     * @param writer The file
+     * @return The number of robots written
+     * @throws IOException If the file cannot be written
+     */
+    private long write(Writer writer) throws IOException {
+        writer.writeDimensions(rows, columns, sparse);
+        Caves caves = new Caves();
+        SplitMixRandom random = new SplitMixRandom(0);
+        long robots = 0;
+        for (int row = 0; row < rows; row++) {
+            boolean[] walls = caves.row(caveSteps, row);
+            random.reset(seed, ROBOT_KEY + row);
+            for (int column = 0; column < columns; column++) {
+                if (walls[column]) {
+                    writer.writeWall(row, column);
+                } else if (robotDensity > 0 && nextDouble(random) < robotDensity) {
+                    robots++;
+                    int health = between(random, minHealth, maxHealth);
+                    if (nextDouble(random) < maximalChance(row, column)) {
+                        writer.writeMaximal(row, column, MAXIMAL_SYMBOL, "Maximal" + robots, health,
+                                between(random, minWeapon, maxWeapon), between(random, minArmor, maxArmor));
+                    } else {
+                        writer.writePredaCon(row, column, PREDACON_SYMBOL, "PredaCon" + robots, health,
+                                WEAPON_TYPES[random.nextInt(WEAPON_TYPES.length)]);
+                    }
+                } else if (!sparse) {
+                    writer.writeEmpty(row, column);
+                }
+            }
+        }
+        return robots;
+    }
+
+    /**
+     * The chance that a robot at a cell is a Maximal, from the faction field
+     *
+     * @param row    The row of the cell
+     * @param column The column of the cell
+     * @return The chance (0 to 1)
+     */
+    private double maximalChance(int row, int column) {
+        if (clustering == 0) {
+            return 0.5;
+        }
+        //Smoothly interpolated random values at the corners of a grid of regions
+        double y = (double) row / clusterSize;
+        double x = (double) column / clusterSize;
+        long cornerRow = (long) y;
+        long cornerColumn = (long) x;
+        double fy = smooth(y - cornerRow);
+        double fx = smooth(x - cornerColumn);
+        double top = corner(cornerRow, cornerColumn) * (1 - fx) + corner(cornerRow, cornerColumn + 1) * fx;
+        double bottom = corner(cornerRow + 1, cornerColumn) * (1 - fx) + corner(cornerRow + 1, cornerColumn + 1) * fx;
+        double field = top * (1 - fy) + bottom * fy;
+        //Clustering sharpens the field from a fair coin towards one faction or the other
+        return Math.max(0, Math.min(1, 0.5 + (field - 0.5) * 4 * clustering));
+    }
+
+    /**
+     * The random value of the faction field at a corner of the region grid
+     *
+     * @param row    The row of the corner
+     * @param column The column of the corner
+     * @return The value (0 to 1)
+     */
+    private double corner(long row, long column) {
+        return nextDouble(SplitMixRandom.forKey(seed, FIELD_KEY + (row << 21 ^ column) * 0x9E3779B97F4A7C15L));
+    }
+
+    /**
+     * Smoothstep, eases interpolation in and out of the corners
+     *
+     * @param t The position between corners (0 to 1)
+     * @return The eased position
+     */
+    private static double smooth(double t) {
+        return t * t * (3 - 2 * t);
+    }
+
+    /**
+     * A random double
+     *
+     * @param random The random stream
+     * @return A double from 0 (inclusive) to 1 (exclusive)
+     */
+    private static double nextDouble(SplitMixRandom random) {
+        return (random.nextLong() >>> 11) * 0x1.0p-53;
+    }
+
+    /**
+     * A random int in a range
+     *
+     * @param random The random stream
+     * @param min    The least value
+     * @param max    The most value
+     * @return A value from min to max (inclusive)
+     */
+    private static int between(SplitMixRandom random, int min, int max) {
+        return min + random.nextInt(max - min + 1);
+    }
+
+    /**
+     * Check a fraction is from 0 to 1
+     *
+     * @param value The fraction
+     * @param what  The name of the fraction (for the error)
+     * @return The fraction
+     */
+    private static double fraction(double value, String what) {
+        if (!(value >= 0 && value <= 1)) {
+            throw new IllegalArgumentException(what + " must be from 0 to 1!");
+        }
+        return value;
+    }
+
+    /**
+     * Check a range is in order and not below a least value
+     *
+     * @param min   The least value of the range
+     * @param max   The most value of the range
+     * @param least The least value allowed
+     * @param what  The name of the range (for the error)
+     */
+    private static void checkRange(int min, int max, int least, String what) {
+        if (min < least || max < min || max - min == Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(what + " must be a range from " + least + " up!");
+        }
+    }
+
+    /**
+     * The wall rows of every cellular automaton step, made in row order keeping only the last three rows of each step
+     */
+    private final class Caves {
+
+        /**
+         * The last three rows made by each step (step 0 is the scattered walls), indexed by row % 3
+         */
+        private final boolean[][][] window = new boolean[caveSteps + 1][3][columns];
+        /**
+         * The last row made by each step (-1 before the first)
+         */
+        private final int[] made = new int[caveSteps + 1];
+        /**
+         * Random stream of the scattered walls (re-used for every row)
+         */
+        private final SplitMixRandom random = new SplitMixRandom(0);
+
+        /**
+         * A new set of steps, no rows made yet
+         */
+        private Caves() {
+            Arrays.fill(made, -1);
+        }
+
+        /**
+         * The walls of a row after a number of steps (rows must be asked for in order)
+         *
+         * @param step The step
+         * @param row  The row (no more than one past the last asked for)
+         * @return The walls of the row (valid until rows three further on are made)
+         */
+        private boolean[] row(int step, int row) {
+            while (made[step] < row) {
+                make(step, made[step] + 1);
+            }
+            return window[step][row % 3];
+        }
+
+        /**
+         * Make the next row of a step
+         *
+         * @param step The step
+         * @param row  The row
+         */
+        private void make(int step, int row) {
+            boolean[] walls = window[step][row % 3];
+            made[step] = row;
+            if (step == 0) {
+                random.reset(seed, WALL_KEY + row);
+                for (int column = 0; column < columns; column++) {
+                    walls[column] = wallDensity > 0 && nextDouble(random) < wallDensity;
+                }
+                return;
+            }
+            //The previous step must be made one row ahead (the row below is a neighbour)
+            if (row + 1 < rows) {
+                row(step - 1, row + 1);
+            } else {
+                row(step - 1, row);
+            }
+            boolean[] above = row > 0 ? window[step - 1][(row - 1) % 3] : null;
+            boolean[] middle = window[step - 1][row % 3];
+            boolean[] below = row + 1 < rows ? window[step - 1][(row + 1) % 3] : null;
+            for (int column = 0; column < columns; column++) {
+                int neighbours = walls(above, column) + walls(middle, column) + walls(below, column) - (middle[column] ? 1 : 0);
+                walls[column] = neighbours >= 5 || (middle[column] && neighbours >= 4);
+            }
+        }
+
+        /**
+         * Count the walls in the three cells of a row around a column (outside the map counts as wall)
+         *
+         * @param walls  The row, null if outside the map
+         * @param column The centre column
+         * @return The number of walls (0 to 3)
+         */
+        private int walls(boolean[] walls, int column) {
+            if (walls == null) {
+                return 3;
+            }
+            int count = walls[column] ? 1 : 0;
+            count += column == 0 || walls[column - 1] ? 1 : 0;
+            count += column + 1 == columns || walls[column + 1] ? 1 : 0;
+            return count;
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package rw.util;
+
+/**
+ * The SplitMix64 generator (as java.util.SplittableRandom), the n'th number is a hash of seed + n * GAMMA
+ * Because numbers only depend on the seed and a counter, independent streams can be made by key (see forKey)
+ * without any shared state, which keeps parallel simulations reproducible.
+ *
+ * @author Jonathan Hudson
+ * @version 1.0
+ */
+public final class SplitMixRandom implements RandomSource {
+
+    /**
+     * The golden ratio increment of the counter
+     */
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    /**
+     * The current counter (seed + n * GAMMA)
+     */
+    private long state;
+
+    /**
+     * A new generator
+     *
+     * @param seed The seed
+     */
+    public SplitMixRandom(long seed) {
+        this.state = seed;
+    }
+
+    /**
+     * A generator for one key (for example a robot on a tick) of a seeded family of streams
+     * The same seed and key always give the same stream, different keys give unrelated streams.
+     *
+     * @param seed The seed of the family
+     * @param key  The key within the family
+     * @return A new generator
+     */
+    public static SplitMixRandom forKey(long seed, long key) {
+        SplitMixRandom random = new SplitMixRandom(0);
+        random.reset(seed, key);
+        return random;
+    }
+
+    /**
+     * Move this generator to the start of the stream of another key (so one generator can be re-used)
+     *
+     * @param seed The seed of the family
+     * @param key  The key within the family
+     */
+    public void reset(long seed, long key) {
+        this.state = mix64(seed + mix64(key * GAMMA));
+    }
+
+    /**
+     * Split off a new generator that is independent of this one
+     *
+     * @return A new generator seeded from this one
+     */
+    public SplitMixRandom split() {
+        return new SplitMixRandom(mix64(nextSeed()));
+    }
+
+    /**
+     * Advance the counter
+     *
+     * @return The new counter
+     */
+    private long nextSeed() {
+        return state += GAMMA;
+    }
+
+    /**
+     * Get a random long
+     *
+     * @return The random long
+     */
+    public long nextLong() {
+        return mix64(nextSeed());
+    }
+
+    @Override
+    public int nextInt(int bound) {
+        if (bound <= 0) {
+            throw new IllegalArgumentException("Bound must be positive!");
+        }
+        int r = mix32(nextSeed());
+        int m = bound - 1;
+        if ((bound & m) == 0) {
+            //Power of two, use the low bits
+            r &= m;
+        } else {
+            //Reject values from the incomplete last range so every result is equally likely
+            for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = mix32(nextSeed()) >>> 1) {
+            }
+        }
+        return r;
+    }
+
+    @Override
+    public String getName() {
+        return "splitmix";
+    }
+
+    @Override
+    public long getState() {
+        return state;
+    }
+
+    @Override
+    public void setState(long state) {
+        this.state = state;
+    }
+
+    /**
+     * The 64 bit finalizer of SplitMix64
+     *
+     * @param z The value to mix
+     * @return The mixed value
+     */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * A 32 bit finalizer of SplitMix64
+     *
+     * @param z The value to mix
+     * @return The mixed value
+     */
+    private static int mix32(long z) {
+        z = (z ^ (z >>> 33)) * 0x62A9D9ED799705F5L;
+        return (int) (((z ^ (z >>> 28)) * 0xCB24D0A5C88C35B3L) >>> 32);
+    }
+}
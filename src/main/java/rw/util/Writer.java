@@ -1,15 +1,20 @@
 package rw.util;
 
-import javafx.scene.paint.Color;
 import rw.battle.*;
+import rw.enums.WeaponType;
+import rw.jfr.WriteBattleEvent;
 
-import java.io.BufferedWriter;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
 import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
 
 /**
  * The Writer class provides static methods for writing data to a file based on a given Battle object.
+ * Lines are encoded straight into a byte buffer that is written through a channel whenever it fills up.
+ * Files named with a .gz or .deflate extension are compressed as they are written (see Compression).
  *
  * @author Paula Amaya
  * @email paula.amaya@ucalgary.ca
@@ -18,61 +23,332 @@ import java.io.UncheckedIOException;
  */
 public class Writer {
 
+    /**
+     * Size of the byte buffer lines are encoded into.
+     */
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    /**
+     * Line separator written after every line, as bytes.
+     */
+    private static final byte[] NEW_LINE = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    /**
+     * The channel being written to.
+     */
+    private final WritableByteChannel channel;
+
+    /**
+     * The buffer every line is encoded into, reused until the whole battle is written.
+     */
+    private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+
+    /**
+     * Creates a writer for an open file.
+     * @param channel File to write to.
+     */
+    private Writer(WritableByteChannel channel) {
+        this.channel = channel;
+    }
+
     /**
      * Takes in a battle object and a file path.  It attempts to write in the given path the information
-     * about the battle object as outlined in the assignment description,
+     * about the battle object as outlined in the assignment description (a line for every cell),
      * @param battle Battle to document in .txt file
      * @param filepath Location to place .txt file
      */
     public static void writeBattleToFile(Battle battle, String filepath){
-        try(BufferedWriter writer = new BufferedWriter(new FileWriter(filepath))) {
-            int battleRows = battle.getRows();
-            int battleCols = battle.getColumns();
-            // Write rows
-            writer.write(String.valueOf(battleRows));
-            writer.newLine();
-            // Write columns
-            writer.write(String.valueOf(battleCols));
-            writer.newLine();
-
-            // Iterate through each entry and write appropriate entity information
-            for (int row = 0; row < battleRows; row++) {
-                for (int col = 0; col < battleCols; col++) {
-                    StringBuilder sb = new StringBuilder(row + "," + col);
-                    Entity entity = battle.getEntity(row, col);
-                    // Add additional information for non-empty spaces
-                    if (entity != null){
-                        if (entity instanceof Wall){
-                            // WALL
-                            sb.append(",WALL");
-                        } else if (entity instanceof PredaCon) {
-                            // PREDACON
-                            PredaCon predacon = (PredaCon) entity;
-                            sb.append(",PREDACON");
-                            sb.append(",").append(predacon.getSymbol());
-                            sb.append(",").append(predacon.getName());
-                            sb.append(",").append(predacon.getHealth());
-                            sb.append(",").append(predacon.getWeaponType().name().charAt(0));
-                        } else {
-                            // MAXIMAL
-                            Maximal maximal = (Maximal) entity;
-                            sb.append(",MAXIMAL");
-                            sb.append(",").append(maximal.getSymbol());
-                            sb.append(",").append(maximal.getName());
-                            sb.append(",").append(maximal.getHealth());
-                            sb.append(",").append(maximal.weaponStrength());
-                            sb.append(",").append(maximal.armorStrength());
-                        }
-                    }
+        writeBattleToFile(battle, filepath, false);
+    }
+
+    /**
+     * Takes in a battle object and a file path.  It attempts to write in the given path the information
+     * about the battle object, either with a line for every cell or in the SPARSE format (only occupied cells).
+     * @param battle Battle to document in .txt file
+     * @param filepath Location to place .txt file
+     * @param sparse true to write the SPARSE format, false to write a line for every cell.
+     */
+    public static void writeBattleToFile(Battle battle, String filepath, boolean sparse){
+        File file = new File(filepath);
+        WriteBattleEvent event = new WriteBattleEvent();
+        event.begin();
+        try(WritableByteChannel channel = Compression.of(file).create(file)) {
+            new Writer(channel).write(battle, sparse);
+        } catch (IOException e){
+            throw new UncheckedIOException("Problem writing battle to file " + filepath, e);
+        }
+        event.end();
+        if (event.shouldCommit()) {
+            event.file = filepath;
+            event.bytes = file.length();
+            event.sparse = sparse;
+            event.rows = battle.getRows();
+            event.columns = battle.getColumns();
+            event.robots = battle.getRobotCount();
+            event.commit();
+        }
+    }
+
+    /**
+     * Takes in a battle object and a file path.  It writes the map of the battle in the given path as a binary map
+     * (see BinaryMap), which loads much faster than text.
+     * @param battle Battle to document in binary file
+     * @param filepath Location to place binary file
+     */
+    public static void writeBinaryBattleToFile(Battle battle, String filepath){
+        BinaryMap.write(battle, new File(filepath));
+    }
+
+    /**
+     * Creates (or empties) a file and opens a writer on it, for writing a battle one line at a time.
+     * Close the writer to finish the file.
+     * @param file File to write to.
+     * @return a writer on the file.
+     * @throws IOException if the file cannot be created.
+     */
+    static Writer open(File file) throws IOException {
+        return new Writer(Compression.of(file).create(file));
+    }
+
+    /**
+     * Writes the dimensions of the battle followed by its cells.
+     * @param battle Battle to write.
+     * @param sparse true to skip empty cells (after a SPARSE line).
+     * @throws IOException if the file cannot be written.
+     */
+    private void write(Battle battle, boolean sparse) throws IOException {
+        int battleRows = battle.getRows();
+        int battleCols = battle.getColumns();
+        writeDimensions(battleRows, battleCols, sparse);
 
-                    // Write entry in a new line
-                    writer.write(sb.toString());
-                    writer.newLine();
+        // Iterate through each entry and write appropriate entity information
+        for (int row = 0; row < battleRows; row++) {
+            for (int col = 0; col < battleCols; col++) {
+                Entity entity = battle.getEntity(row, col);
+                if (entity == null) {
+                    if (!sparse) {
+                        writeEmpty(row, col);
+                    }
+                } else if (entity instanceof Wall){
+                    writeWall(row, col);
+                } else if (entity instanceof PredaCon) {
+                    PredaCon predacon = (PredaCon) entity;
+                    writePredaCon(row, col, predacon.getSymbol(), predacon.getName(), predacon.getHealth(), predacon.getWeaponType());
+                } else {
+                    Maximal maximal = (Maximal) entity;
+                    writeMaximal(row, col, maximal.getSymbol(), maximal.getName(), maximal.getHealth(),
+                            maximal.weaponStrength(), maximal.armorStrength());
                 }
+            }
+        }
+        flush();
+    }
 
+    /**
+     * Writes the dimensions of a battle (after a SPARSE line in the SPARSE format), the first lines of every file.
+     * @param rows Rows of the battle.
+     * @param columns Columns of the battle.
+     * @param sparse true for the SPARSE format (only occupied cells follow).
+     * @throws IOException if the file cannot be written.
+     */
+    void writeDimensions(int rows, int columns, boolean sparse) throws IOException {
+        if (sparse) {
+            putString(Reader.SPARSE_HEADER);
+            newLine();
+        }
+        // Write rows
+        putInt(rows);
+        newLine();
+        // Write columns
+        putInt(columns);
+        newLine();
+    }
+
+    /**
+     * Writes the line of an empty cell (only listed in the dense format).
+     * @param row Row of the cell.
+     * @param column Column of the cell.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeEmpty(int row, int column) throws IOException {
+        putPosition(row, column);
+        newLine();
+    }
+
+    /**
+     * Writes the line of a wall.
+     * @param row Row of the wall.
+     * @param column Column of the wall.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeWall(int row, int column) throws IOException {
+        putPosition(row, column);
+        // WALL
+        putString(",WALL");
+        newLine();
+    }
+
+    /**
+     * Writes the line of a PredaCon.
+     * @param row Row of the PredaCon.
+     * @param column Column of the PredaCon.
+     * @param symbol Symbol of the PredaCon.
+     * @param name Name of the PredaCon.
+     * @param health Health of the PredaCon.
+     * @param weaponType Weapon of the PredaCon.
+     * @throws IOException if the file cannot be written.
+     */
+    void writePredaCon(int row, int column, char symbol, String name, int health, WeaponType weaponType) throws IOException {
+        putPosition(row, column);
+        // PREDACON
+        putString(",PREDACON,");
+        putString(String.valueOf(symbol));
+        putByte(',');
+        putString(name);
+        putByte(',');
+        putInt(health);
+        putByte(',');
+        putByte(weaponType.name().charAt(0));
+        newLine();
+    }
+
+    /**
+     * Writes the line of a Maximal.
+     * @param row Row of the Maximal.
+     * @param column Column of the Maximal.
+     * @param symbol Symbol of the Maximal.
+     * @param name Name of the Maximal.
+     * @param health Health of the Maximal.
+     * @param weaponStrength Weapon strength of the Maximal.
+     * @param armorStrength Armor strength of the Maximal.
+     * @throws IOException if the file cannot be written.
+     */
+    void writeMaximal(int row, int column, char symbol, String name, int health, int weaponStrength, int armorStrength) throws IOException {
+        putPosition(row, column);
+        // MAXIMAL
+        putString(",MAXIMAL,");
+        putString(String.valueOf(symbol));
+        putByte(',');
+        putString(name);
+        putByte(',');
+        putInt(health);
+        putByte(',');
+        putInt(weaponStrength);
+        putByte(',');
+        putInt(armorStrength);
+        newLine();
+    }
+
+    /**
+     * Writes everything still in the buffer and closes the file.
+     * @throws IOException if the file cannot be written.
+     */
+    void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Adds the row and column that start every cell line.
+     * @param row Row of the cell.
+     * @param column Column of the cell.
+     * @throws IOException if the file cannot be written.
+     */
+    private void putPosition(int row, int column) throws IOException {
+        putInt(row);
+        putByte(',');
+        putInt(column);
+    }
+
+    /**
+     * Makes sure the buffer has room for the given number of bytes, writing it to the file if not.
+     * @param bytes Number of bytes needed.
+     * @throws IOException if the file cannot be written.
+     */
+    private void ensureSpace(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    /**
+     * Writes everything in the buffer to the file and empties it.
+     * @throws IOException if the file cannot be written.
+     */
+    private void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Adds a single ASCII character.
+     * @param c Character to add.
+     * @throws IOException if the file cannot be written.
+     */
+    private void putByte(char c) throws IOException {
+        ensureSpace(1);
+        buffer.put((byte) c);
+    }
+
+    /**
+     * Adds the decimal digits of an integer, without creating a String.
+     * @param value Integer to add.
+     * @throws IOException if the file cannot be written.
+     */
+    private void putInt(int value) throws IOException {
+        ensureSpace(11);
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Integer.MIN_VALUE) {
+                buffer.put("2147483648".getBytes(StandardCharsets.US_ASCII));
+                return;
             }
-        } catch (IOException e){
-            throw new UncheckedIOException("Problem writing battle to file " + filepath, e);
+            value = -value;
+        }
+        int start = buffer.position();
+        do {
+            buffer.put((byte) ('0' + value % 10));
+            value /= 10;
+        } while (value != 0);
+        // Digits were added backwards
+        for (int left = start, right = buffer.position() - 1; left < right; left++, right--) {
+            byte digit = buffer.get(left);
+            buffer.put(left, buffer.get(right));
+            buffer.put(right, digit);
+        }
+    }
+
+    /**
+     * Adds a String as UTF-8.
+     * @param value String to add.
+     * @throws IOException if the file cannot be written.
+     */
+    private void putString(String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > buffer.capacity()) {
+            flush();
+            ByteBuffer whole = ByteBuffer.wrap(bytes);
+            while (whole.hasRemaining()) {
+                channel.write(whole);
+            }
+            return;
         }
+        ensureSpace(bytes.length);
+        buffer.put(bytes);
+    }
+
+    /**
+     * Ends the current line.
+     * @throws IOException if the file cannot be written.
+     */
+    private void newLine() throws IOException {
+        ensureSpace(NEW_LINE.length);
+        buffer.put(NEW_LINE);
     }
 }
@@ -0,0 +1,39 @@
+package rw.battle;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rw.shell.Menu;
+import rw.util.RandomSource;
+import rw.util.Reader;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BattleSnapshotTest {
+
+    @Test
+    public void restoredBattleCarriesOnTheSameTest(@TempDir File directory) {
+        Menu.setupQuiet();
+        File file = new File(directory, "battle.snapshot");
+        Battle battle = Reader.loadBattle(new File("battlebig.txt"));
+        battle.setRandom(RandomSource.splitMix(7));
+        for (int tick = 0; tick < 5; tick++) {
+            battle.advanceSimulation();
+        }
+        BattleSnapshot.write(battle, file);
+        Battle restored = BattleSnapshot.read(file);
+        assertEquals(battle.gameString(), restored.gameString());
+        assertEquals(battle.getTick(), restored.getTick());
+        assertEquals("splitmix", restored.getRandom().getName());
+
+        while (battle.isActive()) {
+            battle.advanceSimulation();
+            restored.advanceSimulation();
+            assertEquals(battle.gameString(), restored.gameString());
+        }
+        assertFalse(restored.isActive());
+        assertEquals(battle.getAliveMaximals(), restored.getAliveMaximals());
+        assertEquals(battle.getAlivePredaCons(), restored.getAlivePredaCons());
+    }
+}
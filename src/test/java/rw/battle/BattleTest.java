@@ -0,0 +1,71 @@
+package rw.battle;
+
+import org.junit.jupiter.api.Test;
+import rw.enums.Direction;
+import rw.enums.WeaponType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BattleTest {
+
+    @Test
+    public void aliveCountsTest() {
+        Battle battle = new Battle(3, 3);
+        Maximal maximal = new Maximal('O', "Optimus Primal", 10, 3, 1);
+        PredaCon predaCon = new PredaCon('P', "PredaKing", 3, WeaponType.CLAWS);
+        battle.addEntity(0, 0, maximal);
+        battle.addEntity(2, 2, predaCon);
+        battle.addEntity(1, 1, new PredaCon('D', "Dead", 0, WeaponType.LASER));
+        assertEquals(1, battle.getAliveMaximals());
+        assertEquals(1, battle.getAlivePredaCons());
+
+        //Killed
+        predaCon.damage(5);
+        assertEquals(0, battle.getAlivePredaCons());
+        //Removed from the map
+        battle.addEntity(0, 0, null);
+        assertEquals(0, battle.getAliveMaximals());
+    }
+
+    @Test
+    public void turnOrderSkipsDeadTest() {
+        Battle battle = new Battle(1, 4);
+        PredaCon first = new PredaCon('A', "First", 3, WeaponType.CLAWS);
+        PredaCon second = new PredaCon('B', "Second", 3, WeaponType.CLAWS);
+        PredaCon third = new PredaCon('C', "Third", 3, WeaponType.CLAWS);
+        battle.addEntity(0, 0, first);
+        battle.addEntity(0, 1, second);
+        battle.addEntity(0, 3, third);
+        RobotRegistry robots = battle.getRegistry();
+        assertEquals(0, robots.firstActive());
+        assertEquals(1, robots.nextActive(0));
+
+        //Killed robots leave the turn order, the living keep theirs
+        second.damage(5);
+        assertEquals(2, robots.nextActive(0));
+        //A loop on the dead robot can still carry on
+        assertEquals(2, robots.nextActive(1));
+        battle.addEntity(0, 0, null);
+        assertEquals(2, robots.firstActive());
+        assertEquals(-1, robots.nextActive(2));
+
+        //The dead are still listed
+        assertTrue(battle.gameString().contains("Second"));
+    }
+
+    @Test
+    public void renderShowsChangesTest() {
+        Battle battle = new Battle(2, 2);
+        PredaCon predaCon = new PredaCon('P', "PredaKing", 3, WeaponType.CLAWS);
+        battle.addEntity(0, 0, predaCon);
+        assertEquals("####\n#P.#\n#..#\n####\n", battle.battleString());
+        //Moved, killed and added after the first render
+        battle.moveEntity(0, 0, Direction.SOUTH);
+        assertEquals("####\n#..#\n#P.#\n####\n", battle.battleString());
+        predaCon.damage(5);
+        battle.addEntity(0, 1, Wall.getWall());
+        assertEquals("####\n#.##\n#$.#\n####\n", battle.battleString());
+        assertTrue(battle.gameString().endsWith(predaCon + "\n"));
+        assertTrue(predaCon.toString().contains("DEAD"));
+    }
+}
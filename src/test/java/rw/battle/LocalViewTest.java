@@ -0,0 +1,35 @@
+package rw.battle;
+
+import org.junit.jupiter.api.Test;
+import rw.enums.Direction;
+import rw.enums.WeaponType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LocalViewTest {
+
+    @Test
+    public void localViewTest() {
+        Battle battle = new Battle(3, 3);
+        PredaCon predaCon = new PredaCon('P', "PredaKing", 10, WeaponType.CLAWS);
+        Maximal maximal = new Maximal('O', "Optimus Primal", 10, 3, 1);
+        battle.addEntity(0, 0, predaCon);
+        battle.addEntity(1, 1, maximal);
+
+        LocalView local = battle.getLocal(3, 0, 0);
+        //Outside of the battle reads as walls
+        assertSame(Wall.getWall(), local.getEntity(0, 0));
+        assertSame(Wall.getWall(), local.getEntity(1, 0));
+        //Inside of the battle reads through to the battle
+        assertSame(predaCon, local.getEntity(1, 1));
+        assertSame(maximal, local.getEntity(1, 1, Direction.SOUTHEAST));
+        assertTrue(local.canBeAttacked(1, 1, Direction.SOUTHEAST));
+        assertTrue(local.canMoveOnTopOf(1, 1, Direction.EAST));
+        assertFalse(local.canMoveOnTopOf(1, 1, Direction.NORTH));
+
+        //View follows changes to the battle without being rebuilt
+        battle.moveEntity(1, 1, Direction.EAST);
+        assertNull(local.getEntity(2, 2));
+        assertThrows(IllegalArgumentException.class, () -> battle.getLocal(4, 0, 0));
+    }
+}
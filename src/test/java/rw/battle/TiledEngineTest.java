@@ -0,0 +1,155 @@
+package rw.battle;
+
+import org.junit.jupiter.api.Test;
+import rw.enums.Direction;
+import rw.enums.WeaponType;
+import rw.shell.Menu;
+import rw.util.RandomSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TiledEngineTest {
+
+    /**
+     * Build the same crowded battle every time
+     *
+     * @return A new 40x40 battle
+     */
+    private static Battle makeBattle() {
+        Battle battle = new Battle(40, 40);
+        Random placement = new Random(7);
+        for (int row = 0; row < 40; row++) {
+            for (int column = 0; column < 40; column++) {
+                int roll = placement.nextInt(10);
+                if (roll == 0) {
+                    battle.addEntity(row, column, Wall.getWall());
+                } else if (roll == 1) {
+                    battle.addEntity(row, column, new Maximal('M', "Maximal", 1 + placement.nextInt(9), 1 + placement.nextInt(5), placement.nextInt(3)));
+                } else if (roll == 2) {
+                    battle.addEntity(row, column, new PredaCon('P', "PredaCon", 1 + placement.nextInt(9), WeaponType.values()[placement.nextInt(3)]));
+                }
+            }
+        }
+        battle.setRandom(RandomSource.splitMix(99));
+        return battle;
+    }
+
+    @Test
+    public void sameResultForAnyThreadsTest() {
+        Menu.setupQuiet();
+        Battle single = makeBattle();
+        single.setEngine(new TiledEngine(new ForkJoinPool(1), 4));
+        Battle parallel = makeBattle();
+        parallel.setEngine(new TiledEngine(new ForkJoinPool(4), 4));
+        for (int tick = 0; tick < 50; tick++) {
+            single.advanceSimulation();
+            parallel.advanceSimulation();
+            assertEquals(single.gameString(), parallel.gameString());
+        }
+    }
+
+    @Test
+    public void coverKilledRobotTest() {
+        Menu.setupQuiet();
+        //One tile: B moves east and is killed there by A, then C moves west on top of B
+        Battle battle = new Battle(1, 4);
+        battle.addEntity(0, 1, new Scripted(1, Direction.EAST));
+        battle.addEntity(0, 0, new Maximal('M', "Maximal", 9, 1, 0));
+        battle.addEntity(0, 3, new Scripted(9, Direction.WEST));
+        battle.setEngine(new TiledEngine(new ForkJoinPool(2), 4));
+        List<Integer> countsWhenLogged = new ArrayList<>();
+        battle.addObserver(new BattleObserver() {
+            @Override
+            public void moved(int robot, Direction d) {
+                countsWhenLogged.add(battle.getAlivePredaCons());
+            }
+        });
+        battle.advanceSimulation();
+        //The death of B is only counted once its attack is logged (on one thread), not when C covers it
+        assertEquals(List.of(2, 1), countsWhenLogged);
+        assertEquals(1, battle.getAlivePredaCons());
+        assertEquals(1, battle.getAliveMaximals());
+        assertSame(battle.getRegistry().get(2), battle.getEntity(0, 2));
+        RobotRegistry robots = battle.getRegistry();
+        List<Integer> turnOrder = new ArrayList<>();
+        for (int index = robots.firstActive(); index != -1; index = robots.nextActive(index)) {
+            turnOrder.add(index);
+        }
+        assertEquals(List.of(1, 2), turnOrder);
+    }
+
+    @Test
+    public void aliveCountsAcrossTilesTest() {
+        Menu.setupQuiet();
+        ForkJoinPool pool = new ForkJoinPool(4);
+        for (int repeat = 0; repeat < 20; repeat++) {
+            //In every 5x5 tile a robot is killed and covered, in all the tiles at once
+            Battle battle = new Battle(200, 200);
+            for (int row = 0; row < 200; row += 5) {
+                for (int column = 0; column < 200; column += 5) {
+                    battle.addEntity(row, column + 1, new Scripted(1, Direction.EAST));
+                    battle.addEntity(row, column, new Maximal('M', "Maximal", 9, 1, 0));
+                    battle.addEntity(row, column + 3, new Scripted(9, Direction.WEST));
+                }
+            }
+            battle.setEngine(new TiledEngine(pool, 5));
+            battle.advanceSimulation();
+            assertEquals(1600, battle.getAliveMaximals());
+            assertEquals(1600, battle.getAlivePredaCons());
+            RobotRegistry robots = battle.getRegistry();
+            int active = 0;
+            for (int index = robots.firstActive(); index != -1; index = robots.nextActive(index)) {
+                assertTrue(robots.alive[index]);
+                active++;
+            }
+            assertEquals(3200, active);
+        }
+    }
+
+    /**
+     * A robot that never attacks and always tries to move the same way
+     */
+    private static final class Scripted extends Robot {
+
+        /**
+         * Where the robot moves
+         */
+        private final Direction move;
+
+        /**
+         * A scripted robot
+         *
+         * @param health The health of the robot
+         * @param move   Where the robot moves
+         */
+        Scripted(int health, Direction move) {
+            super('S', "Scripted", health);
+            this.move = move;
+        }
+
+        @Override
+        public int weaponStrength() {
+            return 1;
+        }
+
+        @Override
+        public int armorStrength() {
+            return 0;
+        }
+
+        @Override
+        public Direction chooseMove(LocalView local) {
+            return move;
+        }
+
+        @Override
+        public Direction attackWhere(LocalView local) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package rw.jfr;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rw.battle.Battle;
+import rw.battle.BattleObserver;
+import rw.enums.Direction;
+import rw.shell.Menu;
+import rw.util.Reader;
+import rw.util.SplitMixRandom;
+import rw.util.Writer;
+
+import java.io.File;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EventsTest {
+
+    @Test
+    public void recordedTest(@TempDir File directory) throws Exception {
+        Menu.setupQuiet();
+        File dump = new File(directory, "battle.jfr");
+        int[] attacks = new int[1];
+        Battle battle;
+        try (Recording recording = new Recording()) {
+            for (String name : new String[]{"rw.Tick", "rw.Decision", "rw.Attack", "rw.LoadBattle", "rw.WriteBattle", "rw.Render"}) {
+                recording.enable(name).withThreshold(Duration.ZERO);
+            }
+            recording.start();
+            battle = Reader.loadBattle(new File("battlebig.txt"));
+            battle.setRandom(new SplitMixRandom(3));
+            battle.addObserver(new BattleObserver() {
+                @Override
+                public void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+                    attacks[0]++;
+                }
+            });
+            while (battle.isActive()) {
+                battle.advanceSimulation();
+                battle.gameString();
+            }
+            Writer.writeBattleToFile(battle, new File(directory, "end.txt").getPath(), true);
+            recording.stop();
+            recording.dump(dump.toPath());
+        }
+
+        List<RecordedEvent> events = RecordingFile.readAllEvents(dump.toPath());
+        Map<String, Integer> counts = new HashMap<>();
+        for (RecordedEvent event : events) {
+            counts.merge(event.getEventType().getName(), 1, Integer::sum);
+        }
+        assertEquals(battle.getTick(), counts.get("rw.Tick"));
+        assertEquals(battle.getTick(), counts.get("rw.Render"));
+        assertEquals(attacks[0], counts.get("rw.Attack"));
+        assertTrue(counts.get("rw.Decision") >= battle.getTick());
+        assertEquals(1, counts.get("rw.LoadBattle"));
+        assertEquals(1, counts.get("rw.WriteBattle"));
+        RecordedEvent load = events.stream().filter(e -> e.getEventType().getName().equals("rw.LoadBattle")).findFirst().orElseThrow();
+        assertEquals(battle.getRobotCount(), load.getInt("robots"));
+        assertEquals(battle.getRows(), load.getInt("rows"));
+    }
+}
@@ -0,0 +1,102 @@
+package rw.metrics;
+
+import org.junit.jupiter.api.Test;
+import rw.battle.Battle;
+import rw.battle.BattleObserver;
+import rw.enums.Direction;
+import rw.shell.Menu;
+import rw.util.Reader;
+import rw.util.SplitMixRandom;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.io.InputStream;
+import java.net.HttpURLConnection;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BattleMetricsTest {
+
+    /**
+     * Counts events as they happen
+     */
+    private static final class Tally implements BattleObserver {
+        private long ticks, moves, blocked, attacks, damage, deaths;
+
+        @Override
+        public void tickEnded(int tick) {
+            ticks++;
+        }
+
+        @Override
+        public void moved(int robot, Direction d) {
+            moves++;
+        }
+
+        @Override
+        public void blocked(int robot, Direction d) {
+            blocked++;
+        }
+
+        @Override
+        public void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+            attacks++;
+            this.damage += Math.max(0, trueDamage);
+        }
+
+        @Override
+        public void died(int robot) {
+            deaths++;
+        }
+    }
+
+    @Test
+    public void countsBattleTest() throws Exception {
+        Menu.setupQuiet();
+        Battle battle = Reader.loadBattle(new File("battlebig.txt"));
+        battle.setRandom(new SplitMixRandom(3));
+        BattleMetrics metrics = new BattleMetrics();
+        long maximals = battle.getAliveMaximals();
+        long predaCons = battle.getAlivePredaCons();
+        Tally tally = new Tally();
+        battle.addObserver(tally);
+        battle.addObserver(metrics.observe(battle));
+        while (battle.isActive()) {
+            battle.advanceSimulation();
+        }
+        assertEquals(tally.ticks, metrics.getTicks());
+        assertEquals(tally.moves, metrics.getMoves());
+        assertEquals(tally.blocked, metrics.getBlockedMoves());
+        assertEquals(tally.attacks, metrics.getAttacks());
+        assertEquals(tally.damage, metrics.getDamageDealt());
+        assertEquals(tally.deaths, metrics.getMaximalDeaths() + metrics.getPredaConDeaths());
+        assertEquals(battle.getAliveMaximals(), metrics.getMaximalsAlive());
+        assertEquals(battle.getAlivePredaCons(), metrics.getPredaConsAlive());
+        assertEquals(maximals - battle.getAliveMaximals(), metrics.getMaximalDeaths());
+        assertEquals(predaCons - battle.getAlivePredaCons(), metrics.getPredaConDeaths());
+
+        metrics.register();
+        try {
+            ObjectName name = new ObjectName(BattleMetrics.OBJECT_NAME);
+            assertEquals(metrics.getMoves(), ManagementFactory.getPlatformMBeanServer().getAttribute(name, "Moves"));
+        } finally {
+            metrics.unregister();
+        }
+
+        try (MetricsServer server = new MetricsServer(metrics, 0)) {
+            HttpURLConnection connection = (HttpURLConnection) URI.create("http://localhost:" + server.getPort() + MetricsServer.PATH).toURL().openConnection();
+            assertEquals(200, connection.getResponseCode());
+            String body;
+            try (InputStream in = connection.getInputStream()) {
+                body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            }
+            assertEquals(metrics.prometheusText(), body);
+            assertTrue(body.contains("\nrw_moves_total " + metrics.getMoves() + "\n"));
+            assertTrue(body.contains("\nrw_tick_duration_seconds_bucket{le=\"+Inf\"} " + metrics.getTicks() + "\n"));
+        }
+    }
+}
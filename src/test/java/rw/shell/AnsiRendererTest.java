@@ -0,0 +1,49 @@
+package rw.shell;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AnsiRendererTest {
+
+    /**
+     * Start of every ANSI control sequence
+     */
+    private static final String CSI = "\u001b[";
+
+    @Test
+    public void firstFrameWholeTest() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AnsiRenderer screen = new AnsiRenderer(new PrintStream(bytes, true, StandardCharsets.UTF_8), 30);
+        assertTrue(screen.frame(() -> "Tick 1\tMaximals 12\n#M#", true));
+        assertEquals(CSI + "2J"
+                + CSI + "1;1H" + "Tick 1  Maximals 12" + CSI + "K"
+                + CSI + "2;1H" + "#M#" + CSI + "K"
+                + CSI + "3;1H" + CSI + "J", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void changeAfterTabTest() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AnsiRenderer screen = new AnsiRenderer(new PrintStream(bytes, true, StandardCharsets.UTF_8), 30);
+        screen.frame(() -> "Maxi(1)\tM\tname\t15\tALIVE", true);
+        bytes.reset();
+        //Health is at column 24 on the screen (tab stops every 8 columns), not at its index 16 in the line
+        screen.frame(() -> "Maxi(1)\tM\tname\t12\tALIVE", true);
+        assertEquals(CSI + "1;26H" + "2" + CSI + "2;1H" + CSI + "J", bytes.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void frameRateTest() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        AnsiRenderer screen = new AnsiRenderer(new PrintStream(bytes, true, StandardCharsets.UTF_8), 1);
+        assertTrue(screen.frame(() -> "a", false));
+        assertFalse(screen.frame(() -> fail("Skipped frames are not built"), false));
+        assertTrue(screen.frame(() -> "b", true));
+        assertThrows(IllegalArgumentException.class, () -> new AnsiRenderer(System.out, 0));
+    }
+}
@@ -0,0 +1,80 @@
+package rw.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import rw.battle.Battle;
+import rw.battle.BattleObserver;
+import rw.enums.Direction;
+import rw.shell.Menu;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class JournalTest {
+
+    /**
+     * Remembers every event as text
+     */
+    private static final class Recorder implements BattleObserver {
+        private final List<String> events = new ArrayList<>();
+
+        @Override
+        public void tickStarted(int tick) {
+            events.add("tick " + tick);
+        }
+
+        @Override
+        public void moved(int robot, Direction d) {
+            events.add(robot + " moved " + d);
+        }
+
+        @Override
+        public void blocked(int robot, Direction d) {
+            events.add(robot + " blocked " + d);
+        }
+
+        @Override
+        public void attacked(int robot, int target, Direction d, int damage, int trueDamage) {
+            events.add(robot + " attacked " + target + " " + d + " " + damage + " " + trueDamage);
+        }
+
+        @Override
+        public void died(int robot) {
+            events.add(robot + " died");
+        }
+    }
+
+    @Test
+    public void replayMatchesBattleTest(@TempDir File directory) {
+        Menu.setupQuiet();
+        File file = new File(directory, "battle.journal");
+        Battle battle = Reader.loadBattle(new File("battlebig.txt"));
+        battle.setRandom(RandomSource.lcg(3));
+        Recorder live = new Recorder();
+        battle.addObserver(live);
+        try (JournalWriter journal = new JournalWriter(file)) {
+            battle.addObserver(journal);
+            while (battle.isActive()) {
+                battle.advanceSimulation();
+            }
+        }
+
+        try (JournalReader journal = new JournalReader(file)) {
+            assertEquals(0, journal.getFirstTick());
+            assertEquals(battle.getTick(), journal.getTickCount());
+            Recorder replayed = new Recorder();
+            journal.replay(0, journal.getTickCount(), replayed);
+            assertEquals(live.events, replayed.events);
+
+            //Seek straight to the last tick
+            Recorder last = new Recorder();
+            int tick = journal.getTickCount() - 1;
+            journal.replay(tick, tick + 1, last);
+            assertEquals(live.events.subList(live.events.indexOf("tick " + tick), live.events.size()), last.events);
+            assertThrows(IllegalArgumentException.class, () -> journal.replay(0, journal.getTickCount() + 1, last));
+        }
+    }
+}
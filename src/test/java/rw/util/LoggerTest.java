@@ -0,0 +1,51 @@
+package rw.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class LoggerTest {
+
+    @Test
+    public void closeWritesEverythingInOrderTest(@TempDir File directory) throws IOException {
+        File file = new File(directory, "log.txt");
+        Logger logger = new Logger(file, 10000);
+        //More than fits in the queue and the buffer at once
+        for (int i = 0; i < 20000; i++) {
+            logger.log("line " + i);
+        }
+        logger.close();
+        logger.close();
+        List<String> lines = Files.readAllLines(file.toPath());
+        assertEquals(20000, lines.size());
+        for (int i = 0; i < lines.size(); i++) {
+            assertEquals("line " + i, lines.get(i));
+        }
+        //Discarded once closed
+        logger.log("late");
+        assertEquals(20000, Files.readAllLines(file.toPath()).size());
+    }
+
+    @Test
+    public void compressedLogTest(@TempDir File directory) throws IOException {
+        File file = new File(directory, "log.txt.gz");
+        Logger logger = new Logger(file);
+        for (int i = 0; i < 1000; i++) {
+            logger.log("line " + i);
+        }
+        logger.close();
+        try (GZIPInputStream in = new GZIPInputStream(new FileInputStream(file))) {
+            String[] lines = new String(in.readAllBytes()).split(System.lineSeparator());
+            assertEquals(1000, lines.length);
+            assertEquals("line 999", lines[999]);
+        }
+    }
+}
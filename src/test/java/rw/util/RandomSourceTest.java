@@ -0,0 +1,46 @@
+package rw.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RandomSourceTest {
+
+    @Test
+    public void lcgMatchesJavaRandomTest() {
+        for (int seed : new int[]{1, 12345, -7}) {
+            Random expected = new Random(seed);
+            RandomSource actual = RandomSource.lcg(seed);
+            for (int i = 0; i < 10000; i++) {
+                int bound = 1 + i % 17;
+                assertEquals(expected.nextInt(bound), actual.nextInt(bound));
+            }
+        }
+    }
+
+    @Test
+    public void stateRestoreTest() {
+        for (RandomSource random : new RandomSource[]{RandomSource.lcg(5), RandomSource.splitMix(5)}) {
+            random.nextInt(9);
+            long state = random.getState();
+            int first = random.nextInt(1000);
+            int second = random.nextInt(7);
+            random.setState(state);
+            assertEquals(first, random.nextInt(1000));
+            assertEquals(second, random.nextInt(7));
+        }
+    }
+
+    @Test
+    public void splitMixKeyTest() {
+        SplitMixRandom a = SplitMixRandom.forKey(42, 3);
+        SplitMixRandom b = SplitMixRandom.forKey(42, 3);
+        for (int i = 0; i < 100; i++) {
+            int value = a.nextInt(9);
+            assertTrue(value >= 0 && value < 9);
+            assertEquals(value, b.nextInt(9));
+        }
+    }
+}
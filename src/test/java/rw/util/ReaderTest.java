@@ -1,12 +1,16 @@
 package rw.util;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import rw.battle.Battle;
 import rw.battle.Maximal;
 import rw.battle.PredaCon;
 import rw.battle.Wall;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -20,4 +24,126 @@ class ReaderTest {
         assertInstanceOf(Wall.class, battle.getEntity(2,0));
         assertInstanceOf(Maximal.class, battle.getEntity(2,2));
     }
-}
\ No newline at end of file
+
+    @Test
+    public void loadSparseBattleTest(@TempDir File directory) throws IOException {
+        File file = new File(directory, "sparse.txt");
+        Files.writeString(file.toPath(), "SPARSE\n3\n3\n0,0,PREDACON,P,PredaKing,10,C\n2,0,WALL\n2,2,MAXIMAL,O,Optimus Primal,10,3,1\n");
+        Battle sparse = Reader.loadBattle(file);
+        Battle dense = Reader.loadBattle(new File("battle.txt"));
+        assertEquals(dense.gameString(), sparse.gameString());
+    }
+
+    @Test
+    public void writeDenseAndSparseTest(@TempDir File directory) throws IOException {
+        Battle battle = Reader.loadBattle(new File("battle.txt"));
+        File dense = new File(directory, "dense.txt");
+        File sparse = new File(directory, "sparse.txt");
+        Writer.writeBattleToFile(battle, dense.getPath());
+        Writer.writeBattleToFile(battle, sparse.getPath(), true);
+        assertEquals(Files.readAllLines(new File("battle.txt").toPath()), Files.readAllLines(dense.toPath()));
+        //SPARSE, rows, columns and the three occupied cells
+        assertEquals(6, Files.readAllLines(sparse.toPath()).size());
+        assertEquals(battle.gameString(), Reader.loadBattle(sparse).gameString());
+    }
+
+    @Test
+    public void binaryMapTest(@TempDir File directory) {
+        Battle battle = Reader.loadBattle(new File("battlebig.txt"));
+        File binary = new File(directory, "battle.rwm");
+        Writer.writeBinaryBattleToFile(battle, binary.getPath());
+        assertEquals(battle.gameString(), Reader.loadBattle(binary).gameString());
+    }
+
+    @Test
+    public void formatQuirksTest(@TempDir File directory) throws IOException {
+        File file = new File(directory, "quirks.txt");
+        //CRLF and CR line ends, spaces around lines, lower case keywords, trailing commas and empty cells
+        Files.writeString(file.toPath(), " 2 \r\n3\r0,0,predacon,P,PredaKing,10,c,\r\n0,1,,\n 1,2,Wall \n1,1,MaXiMaL,O,Optimus Primal,10,3,1,extra\n,,\n");
+        Battle battle = Reader.loadBattle(file);
+        assertInstanceOf(PredaCon.class, battle.getEntity(0, 0));
+        assertNull(battle.getEntity(0, 1));
+        assertInstanceOf(Wall.class, battle.getEntity(1, 2));
+        assertEquals("Optimus Primal", ((Maximal) battle.getEntity(1, 1)).getName());
+
+        assertEquals("Invalid entity type ROBOT", loadError(file, "1\n1\n0,0,robot,R"));
+        assertEquals("Wrong input file! Missing Maximal robot attributes.", loadError(file, "1\n1\n0,0,MAXIMAL,O,Name,10,3,"));
+        assertEquals("Wrong input file! Not a valid symbol for a Predacon.", loadError(file, "1\n1\n0,0,PREDACON,PP,Name,10,C"));
+        assertEquals("Wrong input file! Not a valid weapon for a Predacon.", loadError(file, "1\n1\n0,0,PREDACON,P,Name,10,X"));
+        assertEquals("Wrong input file! Position is outside of the map.", loadError(file, "1\n1\n0,1,WALL"));
+        assertEquals("Invalid data format: Unable to parse numeric value.", loadError(file, "1\n1\n0, 0,WALL"));
+        assertEquals("Invalid data format: Unable to parse numeric value.", loadError(file, "1\n99999999999\n"));
+    }
+
+    @Test
+    public void compressedTest(@TempDir File directory) throws IOException {
+        Battle battle = Reader.loadBattle(new File("battlebig.txt"));
+        for (String name : new String[]{"battle.txt.gz", "battle.txt.deflate"}) {
+            File compressed = new File(directory, name);
+            Writer.writeBattleToFile(battle, compressed.getPath());
+            assertTrue(compressed.length() < new File("battlebig.txt").length());
+            assertEquals(battle.gameString(), Reader.loadBattle(compressed).gameString());
+        }
+        //Only the extension decides, a gzip file is gzip whatever is inside
+        File plain = new File(directory, "battle.gz");
+        Files.copy(new File("battle.txt").toPath(), plain.toPath());
+        assertThrows(UncheckedIOException.class, () -> Reader.loadBattle(plain));
+    }
+
+    @Test
+    public void parallelLoadTest(@TempDir File directory) throws IOException {
+        //Every file is split into chunks here, robots must keep their file order (their turn order)
+        File big = new File("battlebig.txt");
+        assertEquals(Reader.loadBattle(big, 1).gameString(), Reader.loadBattle(big, 4, 0).gameString());
+        File quirks = new File(directory, "quirks.txt");
+        Files.writeString(quirks.toPath(), "3\r\n3\r\n0,0,WALL\r0,1\n1,1,MAXIMAL,A,A,10,3,1\r\n2,2,PREDACON,B,B,10,T\r\n1,1,MAXIMAL,C,C,10,3,1");
+        assertEquals(Reader.loadBattle(quirks, 1).gameString(), Reader.loadBattle(quirks, 3, 0).gameString());
+
+        //The first error in the file is the one thrown
+        Files.writeString(quirks.toPath(), "2\n2\n0,0,WALL\n0,1,ROBOT\n1,1,WALL\n9,9,WALL\n");
+        assertEquals("Invalid entity type ROBOT", assertThrows(RuntimeException.class, () -> Reader.loadBattle(quirks, 4, 0)).getMessage());
+        Files.writeString(quirks.toPath(), "2\n2\n0,0,WALL\n0,1,WALL\n1,x,WALL\n9,9,WALL\n");
+        assertEquals("Invalid data format: Unable to parse numeric value.", assertThrows(RuntimeException.class, () -> Reader.loadBattle(quirks, 4, 0)).getMessage());
+    }
+
+    @Test
+    public void generatedTest(@TempDir File directory) throws IOException {
+        ScenarioGenerator generator = new ScenarioGenerator(60, 80, 42);
+        generator.setWallDensity(0.45);
+        generator.setCaveSteps(3);
+        generator.setRobotDensity(0.05);
+        generator.setClustering(1);
+        generator.setClusterSize(8);
+        File sparse = new File(directory, "sparse.txt");
+        File again = new File(directory, "again.txt.gz");
+        long robots = generator.write(sparse);
+        assertTrue(robots > 0);
+        //The same seed gives the same battle, dense or sparse, compressed or not
+        assertEquals(robots, generator.write(again));
+        generator.setSparse(false);
+        File dense = new File(directory, "dense.txt");
+        generator.write(dense);
+        Battle battle = Reader.loadBattle(sparse);
+        assertEquals(robots, battle.getRobotCount());
+        assertEquals(battle.gameString(), Reader.loadBattle(again).gameString());
+        assertEquals(battle.gameString(), Reader.loadBattle(dense).gameString());
+        assertEquals(60 * 80 + 2, Files.readAllLines(dense.toPath()).size());
+        new ScenarioGenerator(60, 80, 43).write(dense);
+        assertNotEquals(battle.gameString(), Reader.loadBattle(dense).gameString());
+        assertThrows(IllegalArgumentException.class, () -> generator.setWallDensity(1.5));
+        assertThrows(IllegalArgumentException.class, () -> generator.setWeapon(0, 3));
+    }
+
+    /**
+     * Write a battle file and load it, expecting it to fail
+     *
+     * @param file     The file to write
+     * @param contents The contents of the file
+     * @return The message of the exception thrown
+     * @throws IOException If the file cannot be written
+     */
+    private static String loadError(File file, String contents) throws IOException {
+        Files.writeString(file.toPath(), contents);
+        return assertThrows(RuntimeException.class, () -> Reader.loadBattle(file)).getMessage();
+    }
+}